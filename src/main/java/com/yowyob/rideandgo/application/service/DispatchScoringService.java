@@ -0,0 +1,247 @@
+package com.yowyob.rideandgo.application.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Classement des chauffeurs candidats à une offre.
+ * <p>
+ * Score = somme pondérée de critères ramenés entre 0 et 1 :
+ * <ul>
+ * <li>distance : 1 pour le plus proche possible, 0 au-delà du plus lointain candidat ;</li>
+ * <li>note : rating / 5 (note neutre tant que le chauffeur n'a aucun avis) ;</li>
+ * <li>nombre d'avis : échelle logarithmique, saturée à reviews-saturation ;</li>
+ * <li>acceptation récente : part des offres reçues auxquelles il a postulé ;</li>
+ * <li>inactivité : temps depuis sa dernière course, saturé à idle-saturation-seconds
+ * (répartit les courses entre chauffeurs).</li>
+ * </ul>
+ * Le calcul travaille sur des tableaux primitifs (aucune allocation dans la boucle)
+ * et la sélection des meilleurs est un tas de taille k, en O(n log k).
+ * <p>
+ * Les statistiques d'acceptation et d'inactivité sont tenues en mémoire par instance.
+ */
+@Service
+public class DispatchScoringService {
+
+    private static final double NEUTRAL_RATING = 3.5;
+    // Au-delà, les anciennes réponses pèsent de moins en moins (moyenne glissante)
+    private static final double ACCEPTANCE_WINDOW = 50;
+
+    private final Map<UUID, DriverStats> stats = new ConcurrentHashMap<>();
+
+    private final double distanceWeight;
+    private final double ratingWeight;
+    private final double reviewsWeight;
+    private final double acceptanceWeight;
+    private final double idleWeight;
+    private final double reviewsScale;
+    private final long idleSaturationMillis;
+
+    public record Candidate(UUID driverId, double distanceKm, double rating, int totalReviews) {
+    }
+
+    private static final class DriverStats {
+        double offered;
+        double accepted;
+        long lastAssignedAt;
+    }
+
+    public DispatchScoringService(
+            @Value("${application.offer.scoring.distance-weight:0.5}") double distanceWeight,
+            @Value("${application.offer.scoring.rating-weight:0.2}") double ratingWeight,
+            @Value("${application.offer.scoring.reviews-weight:0.05}") double reviewsWeight,
+            @Value("${application.offer.scoring.acceptance-weight:0.15}") double acceptanceWeight,
+            @Value("${application.offer.scoring.idle-weight:0.1}") double idleWeight,
+            @Value("${application.offer.scoring.reviews-saturation:100}") int reviewsSaturation,
+            @Value("${application.offer.scoring.idle-saturation-seconds:3600}") long idleSaturationSeconds) {
+        this.distanceWeight = distanceWeight;
+        this.ratingWeight = ratingWeight;
+        this.reviewsWeight = reviewsWeight;
+        this.acceptanceWeight = acceptanceWeight;
+        this.idleWeight = idleWeight;
+        this.reviewsScale = 1.0 / Math.log1p(Math.max(reviewsSaturation, 1));
+        this.idleSaturationMillis = Math.max(idleSaturationSeconds, 1) * 1000;
+    }
+
+    /**
+     * @return les ids des limit meilleurs candidats, du meilleur au moins bon.
+     */
+    public List<UUID> rank(List<Candidate> candidates, int limit) {
+        int n = candidates.size();
+        if (n == 0 || limit <= 0) {
+            return List.of();
+        }
+
+        double[] distance = new double[n];
+        double[] rating = new double[n];
+        double[] reviews = new double[n];
+        double[] acceptance = new double[n];
+        double[] idle = new double[n];
+        long now = System.currentTimeMillis();
+
+        for (int i = 0; i < n; i++) {
+            Candidate candidate = candidates.get(i);
+            distance[i] = candidate.distanceKm();
+            rating[i] = candidate.totalReviews() > 0 ? candidate.rating() : NEUTRAL_RATING;
+            reviews[i] = candidate.totalReviews();
+
+            DriverStats driverStats = stats.get(candidate.driverId());
+            if (driverStats == null) {
+                acceptance[i] = 0.5;
+                idle[i] = 1.0;
+            } else {
+                synchronized (driverStats) {
+                    // Lissage de Laplace : un chauffeur peu sollicité part de 0.5
+                    acceptance[i] = (driverStats.accepted + 1) / (driverStats.offered + 2);
+                    idle[i] = driverStats.lastAssignedAt == 0 ? 1.0
+                            : Math.min(1.0, (double) (now - driverStats.lastAssignedAt) / idleSaturationMillis);
+                }
+            }
+        }
+
+        double[] score = new double[n];
+        score(distance, rating, reviews, acceptance, idle, n, score);
+
+        int[] top = new int[Math.min(limit, n)];
+        int count = topK(score, n, top);
+
+        List<UUID> ranked = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ranked.add(candidates.get(top[i]).driverId());
+        }
+        return ranked;
+    }
+
+    /**
+     * Calcule le score des n premiers candidats dans out.
+     */
+    void score(double[] distanceKm, double[] rating, double[] reviews, double[] acceptance, double[] idle, int n,
+            double[] out) {
+        double maxDistance = 0;
+        for (int i = 0; i < n; i++) {
+            maxDistance = Math.max(maxDistance, distanceKm[i]);
+        }
+        double distanceScale = maxDistance > 0 ? 1.0 / maxDistance : 0;
+
+        for (int i = 0; i < n; i++) {
+            out[i] = distanceWeight * (1.0 - distanceKm[i] * distanceScale)
+                    + ratingWeight * (rating[i] / 5.0)
+                    + reviewsWeight * Math.min(1.0, Math.log1p(reviews[i]) * reviewsScale)
+                    + acceptanceWeight * acceptance[i]
+                    + idleWeight * idle[i];
+        }
+    }
+
+    /**
+     * Sélectionne les indices des top.length meilleurs scores (tas min de taille k),
+     * rangés du meilleur au moins bon.
+     * @return le nombre d'indices écrits dans top.
+     */
+    static int topK(double[] score, int n, int[] top) {
+        int k = Math.min(top.length, n);
+        if (k == 0) {
+            return 0;
+        }
+        for (int i = 0; i < k; i++) {
+            top[i] = i;
+            siftUp(score, top, i);
+        }
+        for (int i = k; i < n; i++) {
+            if (score[i] > score[top[0]]) {
+                top[0] = i;
+                siftDown(score, top, 0, k);
+            }
+        }
+        // Tri en place : on extrait le minimum vers la fin
+        for (int size = k - 1; size > 0; size--) {
+            int min = top[0];
+            top[0] = top[size];
+            top[size] = min;
+            siftDown(score, top, 0, size);
+        }
+        return k;
+    }
+
+    private static void siftUp(double[] score, int[] heap, int i) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (score[heap[i]] >= score[heap[parent]]) {
+                return;
+            }
+            swap(heap, i, parent);
+            i = parent;
+        }
+    }
+
+    private static void siftDown(double[] score, int[] heap, int i, int size) {
+        while (true) {
+            int left = 2 * i + 1;
+            if (left >= size) {
+                return;
+            }
+            int smallest = left;
+            int right = left + 1;
+            if (right < size && score[heap[right]] < score[heap[left]]) {
+                smallest = right;
+            }
+            if (score[heap[i]] <= score[heap[smallest]]) {
+                return;
+            }
+            swap(heap, i, smallest);
+            i = smallest;
+        }
+    }
+
+    private static void swap(int[] heap, int a, int b) {
+        int tmp = heap[a];
+        heap[a] = heap[b];
+        heap[b] = tmp;
+    }
+
+    // --- Statistiques de comportement ---
+
+    public void recordOffered(Collection<UUID> driverIds) {
+        for (UUID driverId : driverIds) {
+            stats.compute(driverId, (id, driverStats) -> {
+                DriverStats s = driverStats != null ? driverStats : new DriverStats();
+                synchronized (s) {
+                    if (s.offered >= ACCEPTANCE_WINDOW) {
+                        s.offered /= 2;
+                        s.accepted /= 2;
+                    }
+                    s.offered++;
+                }
+                return s;
+            });
+        }
+    }
+
+    public void recordAccepted(UUID driverId) {
+        stats.compute(driverId, (id, driverStats) -> {
+            DriverStats s = driverStats != null ? driverStats : new DriverStats();
+            synchronized (s) {
+                // Une candidature spontanée (offre vue dans la liste) compte aussi
+                s.accepted++;
+                s.offered = Math.max(s.offered, s.accepted);
+            }
+            return s;
+        });
+    }
+
+    public void recordAssigned(UUID driverId) {
+        stats.compute(driverId, (id, driverStats) -> {
+            DriverStats s = driverStats != null ? driverStats : new DriverStats();
+            synchronized (s) {
+                s.lastAssignedAt = System.currentTimeMillis();
+            }
+            return s;
+        });
+    }
+}
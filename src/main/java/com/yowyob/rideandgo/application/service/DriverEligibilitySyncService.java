@@ -0,0 +1,51 @@
+package com.yowyob.rideandgo.application.service;
+
+import com.yowyob.rideandgo.domain.ports.out.DriverEligibilityCachePort;
+import com.yowyob.rideandgo.domain.ports.out.DriverRepositoryPort;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Reconstruit l'ensemble Redis des chauffeurs éligibles depuis Postgres, au
+ * démarrage puis périodiquement. Les écritures de DriverR2dbcAdapter le tiennent à
+ * jour au fil de l'eau ; ce rattrapage couvre un Redis vidé ou une synchro ratée.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DriverEligibilitySyncService {
+
+    private final DriverRepositoryPort driverRepositoryPort;
+    private final DriverEligibilityCachePort eligibilityCache;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        rebuildEligibleDrivers();
+    }
+
+    @Scheduled(fixedDelayString = "${application.driver.eligibility.resync-interval-ms:600000}",
+            initialDelayString = "${application.driver.eligibility.resync-interval-ms:600000}")
+    public void rebuildEligibleDrivers() {
+        if (!running.compareAndSet(false, true)) {
+            return;
+        }
+        // Repère pris avant la lecture : les changements faits pendant la lecture sont
+        // rejoués sur le nouvel ensemble
+        eligibilityCache.startRebuild()
+                .flatMap(since -> driverRepositoryPort.findAllEligibleDriverIds()
+                        .collectList()
+                        .flatMap(ids -> eligibilityCache.replaceEligibleDrivers(ids, since).thenReturn(ids.size())))
+                .doFinally(signal -> running.set(false))
+                .subscribe(
+                        count -> log.info("✅ Driver eligibility set rebuilt: {} eligible drivers", count),
+                        e -> log.error("❌ Error while rebuilding driver eligibility set", e));
+    }
+}
@@ -0,0 +1,79 @@
+package com.yowyob.rideandgo.application.service;
+
+import com.yowyob.rideandgo.domain.ports.out.LocationCachePort;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Recherche des chauffeurs éligibles autour d'un point de départ d'offre.
+ * <p>
+ * Mode "ring" : le rayon grandit par anneaux (initial-radius-km, multiplié par
+ * ring-factor) jusqu'à trouver target-candidates chauffeurs ou atteindre
+ * max-radius-km. Chaque recherche est plafonnée à target-candidates résultats (COUNT
+ * côté Redis) : en centre-ville on s'arrête vite sur les plus proches, en périphérie
+ * on va chercher plus loin. Mode "radius" : ancien comportement, tout le rayon
+ * application.offer.search-radius-km sans limite.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DriverSearchService {
+
+    private final LocationCachePort locationCachePort;
+
+    @Value("${application.offer.matching.mode:ring}")
+    private String mode;
+
+    @Value("${application.offer.search-radius-km:20.0}")
+    private double searchRadius;
+
+    @Value("${application.offer.matching.target-candidates:20}")
+    private int targetCandidates;
+
+    @Value("${application.offer.matching.initial-radius-km:1.0}")
+    private double initialRadius;
+
+    @Value("${application.offer.matching.max-radius-km:10.0}")
+    private double maxRadius;
+
+    @Value("${application.offer.matching.ring-factor:2.0}")
+    private double ringFactor;
+
+    private record Ring(double radiusKm, List<LocationCachePort.GeoResult> drivers) {
+    }
+
+    /**
+     * @return les chauffeurs éligibles retenus, du plus proche au plus lointain.
+     */
+    public Mono<List<LocationCachePort.GeoResult>> findCandidates(double latitude, double longitude) {
+        if (!"ring".equalsIgnoreCase(mode)) {
+            return locationCachePort.findNearbyEligibleDrivers(latitude, longitude, searchRadius, 0).collectList();
+        }
+
+        double firstRadius = Math.min(initialRadius, maxRadius);
+        return searchRing(latitude, longitude, firstRadius)
+                .expand(ring -> {
+                    if (ring.drivers().size() >= targetCandidates || ring.radiusKm() >= maxRadius) {
+                        return Mono.empty();
+                    }
+                    double next = Math.min(ring.radiusKm() * Math.max(ringFactor, 1.1), maxRadius);
+                    return searchRing(latitude, longitude, next);
+                })
+                .last()
+                .doOnNext(ring -> log.debug("🔎 {} candidates within {}km", ring.drivers().size(), ring.radiusKm()))
+                .map(Ring::drivers);
+    }
+
+    private Mono<Ring> searchRing(double latitude, double longitude, double radiusKm) {
+        // Chaque anneau refait la recherche sur le disque entier : le tri par distance
+        // et le plafond restent exacts, et le coût est borné par targetCandidates
+        return locationCachePort.findNearbyEligibleDrivers(latitude, longitude, radiusKm, targetCandidates)
+                .collectList()
+                .map(drivers -> new Ring(radiusKm, drivers));
+    }
+}
@@ -0,0 +1,167 @@
+package com.yowyob.rideandgo.application.service;
+
+import com.yowyob.rideandgo.domain.ports.out.LocationCachePort.LocationFix;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Filtre GPS appliqué avant tout stockage (Live + historique).
+ * <p>
+ * Pour chaque acteur, on garde en mémoire le dernier fix accepté et on écarte :
+ * <ul>
+ * <li>le bruit à l'arrêt : fix à moins de min-distance-m du précédent. Un fix
+ * immobile est quand même accepté toutes les max-silence-seconds, pour que la
+ * position Live reste fraîche.</li>
+ * <li>les sauts impossibles : vitesse implicite au-delà de max-speed-kmh, même
+ * après un silence (deux fixes de la même seconde comptent pour 1 s). Après
+ * max-consecutive-spikes rejets de suite, le fix suivant sert de nouvelle
+ * référence (sinon un premier point faux bloquerait tout le reste).</li>
+ * </ul>
+ */
+@Slf4j
+@Service
+public class GpsFixFilterService {
+
+    private final TrackingCalculatorService trackingCalculatorService;
+
+    private final Map<UUID, FilterState> states = new ConcurrentHashMap<>();
+
+    private final Counter accepted;
+    private final Counter droppedJitter;
+    private final Counter droppedSpeed;
+
+    @Value("${application.location.filter.enabled:true}")
+    private boolean enabled;
+
+    @Value("${application.location.filter.min-distance-m:5}")
+    private double minDistanceMeters;
+
+    @Value("${application.location.filter.max-speed-kmh:200}")
+    private double maxSpeedKmh;
+
+    @Value("${application.location.filter.max-silence-seconds:30}")
+    private long maxSilenceSeconds;
+
+    @Value("${application.location.filter.max-consecutive-spikes:3}")
+    private int maxConsecutiveSpikes;
+
+    @Value("${application.location.filter.state-ttl-minutes:30}")
+    private long stateTtlMinutes;
+
+    public GpsFixFilterService(TrackingCalculatorService trackingCalculatorService, MeterRegistry meterRegistry) {
+        this.trackingCalculatorService = trackingCalculatorService;
+        this.accepted = Counter.builder("rideandgo.location.filter")
+                .description("Fixes GPS examinés par le filtre")
+                .tag("result", "accepted")
+                .register(meterRegistry);
+        this.droppedJitter = Counter.builder("rideandgo.location.filter")
+                .description("Fixes GPS examinés par le filtre")
+                .tag("result", "dropped_jitter")
+                .register(meterRegistry);
+        this.droppedSpeed = Counter.builder("rideandgo.location.filter")
+                .description("Fixes GPS examinés par le filtre")
+                .tag("result", "dropped_speed")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Filtre un lot de fixes triés par horodatage croissant.
+     * @return les fixes à stocker, dans le même ordre.
+     */
+    public List<LocationFix> filter(UUID actorId, List<LocationFix> fixes) {
+        if (!enabled || fixes.isEmpty()) {
+            return fixes;
+        }
+
+        List<LocationFix> kept = new ArrayList<>(fixes.size());
+        // compute() : les lots d'un même acteur sont filtrés l'un après l'autre
+        states.compute(actorId, (id, state) -> {
+            FilterState current = state != null ? state : new FilterState();
+            for (LocationFix fix : fixes) {
+                if (accept(current, fix)) {
+                    kept.add(fix);
+                }
+            }
+            current.lastSeenAt = Instant.now().getEpochSecond();
+            return current;
+        });
+        return kept;
+    }
+
+    private boolean accept(FilterState state, LocationFix fix) {
+        if (state.last == null) {
+            return keep(state, fix);
+        }
+
+        LocationFix last = state.last;
+        long dt = fix.timestamp() - last.timestamp();
+
+        // Backfill plus ancien que la référence : rien à comparer, on le garde sans
+        // déplacer la référence
+        if (dt < 0) {
+            accepted.increment();
+            return true;
+        }
+
+        double meters = trackingCalculatorService.calculateDistanceMeters(
+                last.latitude(), last.longitude(), fix.latitude(), fix.longitude());
+
+        // Silence prolongé : un fix immobile est accepté pour rafraîchir le Live (le
+        // contrôle de vitesse s'applique toujours)
+        if (meters < minDistanceMeters && dt < maxSilenceSeconds) {
+            droppedJitter.increment();
+            return false;
+        }
+
+        // Deux fixes dans la même seconde : vitesse calculée sur 1 s
+        if ((meters / Math.max(dt, 1)) * 3.6 > maxSpeedKmh) {
+            if (++state.consecutiveSpikes < maxConsecutiveSpikes) {
+                droppedSpeed.increment();
+                return false;
+            }
+            // Trop de rejets d'affilée : c'est probablement la référence qui était fausse
+            log.debug("🛰️ GPS filter re-anchored after {} speed spikes", state.consecutiveSpikes);
+        }
+
+        return keep(state, fix);
+    }
+
+    private boolean keep(FilterState state, LocationFix fix) {
+        state.last = fix;
+        state.consecutiveSpikes = 0;
+        accepted.increment();
+        return true;
+    }
+
+    /**
+     * Libère l'état des acteurs qui n'envoient plus de positions.
+     */
+    @Scheduled(fixedRateString = "${application.location.filter.eviction-interval-ms:300000}")
+    public void evictIdleStates() {
+        long threshold = Instant.now().getEpochSecond() - stateTtlMinutes * 60;
+        int before = states.size();
+        states.values().removeIf(state -> state.lastSeenAt < threshold);
+        int evicted = before - states.size();
+        if (evicted > 0) {
+            log.debug("🧹 GPS filter: evicted {} idle actor states", evicted);
+        }
+    }
+
+    // Modifié uniquement à l'intérieur de compute(), donc sans concurrence
+    private static final class FilterState {
+        private LocationFix last;
+        private int consecutiveSpikes;
+        private volatile long lastSeenAt;
+    }
+}
@@ -1,18 +1,29 @@
 package com.yowyob.rideandgo.application.service;
 
+import com.yowyob.rideandgo.domain.model.Ride;
+import com.yowyob.rideandgo.domain.model.enums.RideState;
 import com.yowyob.rideandgo.domain.ports.in.GetRideLocationUseCase;
 import com.yowyob.rideandgo.domain.ports.in.UpdateLocationUseCase;
 import com.yowyob.rideandgo.domain.ports.out.LocationCachePort;
+import com.yowyob.rideandgo.domain.ports.out.RideFeedPort;
 import com.yowyob.rideandgo.domain.ports.out.RideRepositoryPort;
 import com.yowyob.rideandgo.infrastructure.adapters.inbound.rest.dto.RideTrackingResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.context.ReactiveSecurityContextHolder;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 @Slf4j
 @Service
@@ -21,7 +32,12 @@ public class LocationService implements UpdateLocationUseCase, GetRideLocationUs
 
     private final LocationCachePort locationCachePort;
     private final RideRepositoryPort rideRepositoryPort;
+    private final RideFeedPort rideFeedPort;
     private final TrackingCalculatorService trackingCalculatorService; // Injection du nouveau service
+    private final GpsFixFilterService gpsFixFilterService;
+
+    @Value("${application.location.batch.max-size:500}")
+    private int maxBatchSize;
 
     // --- 1. Mise à jour de ma position (Existante) ---
     @Override
@@ -32,6 +48,12 @@ public class LocationService implements UpdateLocationUseCase, GetRideLocationUs
                     String userIdStr = auth.getName(); 
                     try {
                         UUID userId = UUID.fromString(userIdStr);
+                        LocationCachePort.LocationFix fix = new LocationCachePort.LocationFix(
+                                latitude, longitude, Instant.now().getEpochSecond());
+                        // Fix écarté par le filtre (bruit à l'arrêt, saut impossible) : rien à stocker
+                        if (gpsFixFilterService.filter(userId, List.of(fix)).isEmpty()) {
+                            return Mono.just(true);
+                        }
                         return locationCachePort.saveLocation(userId, latitude, longitude);
                     } catch (IllegalArgumentException e) {
                         log.error("Security Context principal is not a valid UUID: {}", userIdStr);
@@ -41,58 +63,159 @@ public class LocationService implements UpdateLocationUseCase, GetRideLocationUs
                 .switchIfEmpty(Mono.error(new RuntimeException("No security context found for location update")));
     }
 
-    // --- 2. Consultation Intelligente (Nouvelle Implémentation) ---
+    // --- 1bis. Mise à jour groupée (lot de fixes horodatés par le client) ---
     @Override
-    public Mono<RideTrackingResponse> getPartnerLocation(UUID rideId, UUID requesterId) {
-        return rideRepositoryPort.findRideById(rideId)
-                .switchIfEmpty(Mono.error(new IllegalArgumentException("Ride not found")))
-                .flatMap(ride -> {
-                    UUID targetId;
-                    String targetRole;
-
-                    // Détermination Symétrique
-                    if (requesterId.equals(ride.driverId())) {
-                        targetId = ride.passengerId();
-                        targetRole = "PASSENGER";
-                    } else if (requesterId.equals(ride.passengerId())) {
-                        targetId = ride.driverId();
-                        targetRole = "DRIVER";
-                    } else {
-                        return Mono.error(new IllegalStateException("Access Denied: You are not part of this ride"));
+    public Mono<Integer> updateLocationBatch(List<LocationCachePort.LocationFix> fixes) {
+        return ReactiveSecurityContextHolder.getContext()
+                .map(SecurityContext::getAuthentication)
+                .flatMap(auth -> {
+                    String userIdStr = auth.getName();
+                    try {
+                        UUID userId = UUID.fromString(userIdStr);
+                        return ingestFixes(userId, fixes);
+                    } catch (IllegalArgumentException e) {
+                        log.error("Security Context principal is not a valid UUID: {}", userIdStr);
+                        return Mono.just(0);
                     }
+                })
+                .switchIfEmpty(Mono.error(new RuntimeException("No security context found for location update")));
+    }
+
+    // --- 1ter. Ingestion pour un acteur déjà authentifié (WebSocket) ---
+    @Override
+    public Mono<Integer> ingestFixes(UUID actorId, List<LocationCachePort.LocationFix> fixes) {
+        if (fixes == null || fixes.isEmpty()) {
+            return Mono.just(0);
+        }
+        if (fixes.size() > maxBatchSize) {
+            return Mono.error(new IllegalArgumentException(
+                    "Batch too large: " + fixes.size() + " fixes (max " + maxBatchSize + ")"));
+        }
 
+        List<LocationCachePort.LocationFix> kept = gpsFixFilterService.filter(actorId, normalizeFixes(fixes));
+        if (kept.isEmpty()) {
+            return Mono.just(0);
+        }
+        return locationCachePort.saveLocations(actorId, kept)
+                .map(saved -> saved ? kept.size() : 0);
+    }
+
+    /**
+     * Écarte les coordonnées invalides, horodate les fixes sans timestamp, ramène à
+     * "maintenant" ceux datés dans le futur, puis trie par ordre chronologique (les
+     * lots de backfill peuvent arriver dans le désordre).
+     * <p>
+     * Un lot daté dans le passé n'est jamais recalé : après une reconnexion, c'est du
+     * vrai backfill, qui doit garder ses horodatages pour l'historique et ne pas
+     * passer devant une position Live plus récente.
+     */
+    private List<LocationCachePort.LocationFix> normalizeFixes(List<LocationCachePort.LocationFix> fixes) {
+        long now = Instant.now().getEpochSecond();
+        return fixes.stream()
+                .filter(f -> f != null && f.latitude() != null && f.longitude() != null)
+                .filter(f -> Math.abs(f.latitude()) <= 90 && Math.abs(f.longitude()) <= 180)
+                .map(f -> new LocationCachePort.LocationFix(f.latitude(), f.longitude(),
+                        f.timestamp() != null ? Math.min(f.timestamp(), now) : now))
+                .sorted(Comparator.comparingLong(LocationCachePort.LocationFix::timestamp))
+                .toList();
+    }
+
+    // --- 2. Consultation Intelligente (Nouvelle Implémentation) ---
+    @Override
+    public Mono<RideTrackingResponse> getPartnerLocation(UUID rideId, UUID requesterId) {
+        return resolvePartner(rideId, requesterId)
+                .flatMap(partner -> {
                     // Récupération Parallèle des 2 positions
-                    Mono<LocationCachePort.Location> targetLocMono = locationCachePort.getLocation(targetId)
-                            .defaultIfEmpty(new LocationCachePort.Location(0.0, 0.0));
+                    Mono<LocationCachePort.Location> targetLocMono = locationCachePort.getLocation(partner.id())
+                            .defaultIfEmpty(UNKNOWN_LOCATION);
                     
                     Mono<LocationCachePort.Location> myLocMono = locationCachePort.getLocation(requesterId)
-                            .defaultIfEmpty(new LocationCachePort.Location(0.0, 0.0));
+                            .defaultIfEmpty(UNKNOWN_LOCATION);
 
                     return Mono.zip(targetLocMono, myLocMono)
-                            .map(tuple -> {
-                                LocationCachePort.Location targetLoc = tuple.getT1();
-                                LocationCachePort.Location myLoc = tuple.getT2();
-
-                                double distance = 0.0;
-                                int eta = 0;
-
-                                // On ne calcule que si les positions sont valides
-                                if (targetLoc.latitude() != 0.0 && myLoc.latitude() != 0.0) {
-                                    distance = trackingCalculatorService.calculateDistance(
-                                            myLoc.latitude(), myLoc.longitude(),
-                                            targetLoc.latitude(), targetLoc.longitude()
-                                    );
-                                    eta = trackingCalculatorService.calculateEtaInMinutes(distance);
-                                }
-
-                                return new RideTrackingResponse(
-                                        targetLoc.latitude(),
-                                        targetLoc.longitude(),
-                                        distance,
-                                        eta,
-                                        targetRole
-                                );
-                            });
+                            .map(tuple -> toTrackingResponse(tuple.getT1(), tuple.getT2(), partner.role()));
                 });
     }
+
+    // --- 3. Suivi en direct (SSE) ---
+    @Override
+    public Flux<RideTrackingResponse> streamPartnerLocation(UUID rideId, UUID requesterId) {
+        // Abonnement à l'état de la course avant de la lire : une fin de course ne peut
+        // pas passer entre les deux
+        return rideFeedPort.watchState(rideId)
+                .flatMapMany(states -> rideRepositoryPort.findRideById(rideId)
+                        .switchIfEmpty(Mono.error(new IllegalArgumentException("Ride not found")))
+                        .flatMap(ride -> IN_PROGRESS.contains(ride.state())
+                                ? partnerOf(ride, requesterId)
+                                : Mono.error(new IllegalStateException("Ride is not in progress")))
+                        .flatMapMany(partner -> Flux.combineLatest(
+                                trackedLocation(partner.id()),
+                                trackedLocation(requesterId),
+                                (targetLoc, myLoc) -> toTrackingResponse(targetLoc, myLoc, partner.role()))
+                                .distinctUntilChanged()
+                                // Le flux se termine quand la course est terminée ou annulée
+                                .takeUntilOther(states.filter(state -> !IN_PROGRESS.contains(state)))));
+    }
+
+    // Position actuelle puis chaque mise à jour publiée par Redis. L'abonnement est
+    // confirmé avant la lecture ; si une mise à jour arrive avant la réponse de la
+    // lecture, c'est elle qui est gardée.
+    private Flux<LocationCachePort.Location> trackedLocation(UUID actorId) {
+        return locationCachePort.watchLocation(actorId)
+                .flatMapMany(updates -> {
+                    AtomicBoolean updated = new AtomicBoolean();
+                    return Flux.merge(
+                            updates.doOnNext(location -> updated.set(true)),
+                            locationCachePort.getLocation(actorId)
+                                    .defaultIfEmpty(UNKNOWN_LOCATION)
+                                    .filter(location -> !updated.get()));
+                });
+    }
+
+    private static final LocationCachePort.Location UNKNOWN_LOCATION = new LocationCachePort.Location(0.0, 0.0);
+
+    // Course en cours : chauffeur en approche ou passager à bord
+    private static final Set<RideState> IN_PROGRESS = EnumSet.of(RideState.CREATED, RideState.ONGOING);
+
+    private record Partner(UUID id, String role) {
+    }
+
+    private Mono<Partner> resolvePartner(UUID rideId, UUID requesterId) {
+        return rideRepositoryPort.findRideById(rideId)
+                .switchIfEmpty(Mono.error(new IllegalArgumentException("Ride not found")))
+                .flatMap(ride -> partnerOf(ride, requesterId));
+    }
+
+    private Mono<Partner> partnerOf(Ride ride, UUID requesterId) {
+        // Détermination Symétrique
+        if (requesterId.equals(ride.driverId())) {
+            return Mono.just(new Partner(ride.passengerId(), "PASSENGER"));
+        } else if (requesterId.equals(ride.passengerId())) {
+            return Mono.just(new Partner(ride.driverId(), "DRIVER"));
+        }
+        return Mono.error(new IllegalStateException("Access Denied: You are not part of this ride"));
+    }
+
+    private RideTrackingResponse toTrackingResponse(LocationCachePort.Location targetLoc,
+            LocationCachePort.Location myLoc, String targetRole) {
+        double distance = 0.0;
+        int eta = 0;
+
+        // On ne calcule que si les positions sont valides
+        if (targetLoc.latitude() != 0.0 && myLoc.latitude() != 0.0) {
+            distance = trackingCalculatorService.calculateDistance(
+                    myLoc.latitude(), myLoc.longitude(),
+                    targetLoc.latitude(), targetLoc.longitude()
+            );
+            eta = trackingCalculatorService.calculateEtaInMinutes(distance);
+        }
+
+        return new RideTrackingResponse(
+                targetLoc.latitude(),
+                targetLoc.longitude(),
+                distance,
+                eta,
+                targetRole
+        );
+    }
 }
\ No newline at end of file
@@ -0,0 +1,97 @@
+package com.yowyob.rideandgo.application.service;
+
+import com.yowyob.rideandgo.domain.ports.out.OfferExpiryPort;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Annule automatiquement les offres restées ouvertes au-delà de leur date limite.
+ * <p>
+ * Les échéances vivent dans un ZSET Redis : chaque passage ne lit que les offres
+ * échues, par lots, sans parcourir la table des offres. Une offre dont l'annulation
+ * échoue est reprogrammée un peu plus tard.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OfferExpiryService {
+
+    private final OfferExpiryPort offerExpiryPort;
+    private final OfferService offerService;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    @Value("${application.offer.expiry.ttl-minutes:30}")
+    private long offerTtlMinutes;
+
+    @Value("${application.offer.expiry.batch-size:200}")
+    private int batchSize;
+
+    @Value("${application.offer.expiry.retry-delay-seconds:60}")
+    private long retryDelaySeconds;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        // Offres ouvertes créées avant l'échéancier : elles reçoivent la durée par défaut
+        offerExpiryPort.backfillOpenOffers(Instant.now().plus(Duration.ofMinutes(offerTtlMinutes)))
+                .subscribe(
+                        added -> {
+                            if (added > 0) {
+                                log.info("⌛ Scheduled expiry for {} open offers without deadline", added);
+                            }
+                        },
+                        e -> log.error("❌ Error while backfilling offer expiry", e));
+    }
+
+    @Scheduled(fixedDelayString = "${application.offer.expiry.sweep-interval-ms:15000}")
+    public void expireOffers() {
+        if (!running.compareAndSet(false, true)) {
+            return;
+        }
+        Instant now = Instant.now();
+
+        // Lots successifs tant que le lot précédent était plein
+        expireBatch(now)
+                .expand(popped -> popped >= batchSize ? expireBatch(now) : Mono.empty())
+                .then()
+                .doFinally(signal -> running.set(false))
+                .subscribe(null, e -> log.error("❌ Error during offer expiry sweep", e));
+    }
+
+    private Mono<Integer> expireBatch(Instant now) {
+        return offerExpiryPort.popExpired(now, batchSize)
+                .collectList()
+                .flatMap(ids -> {
+                    if (ids.isEmpty()) {
+                        return Mono.just(0);
+                    }
+                    return offerService.expireOffers(ids)
+                            .doOnNext(expired -> log.info("⌛ Expired {} offers ({} due)", expired, ids.size()))
+                            .onErrorResume(e -> {
+                                log.error("❌ Offer expiry failed, rescheduling {} offers", ids.size(), e);
+                                return reschedule(ids).thenReturn(0L);
+                            })
+                            .thenReturn(ids.size());
+                });
+    }
+
+    private Mono<Void> reschedule(List<UUID> ids) {
+        Instant retryAt = Instant.now().plusSeconds(retryDelaySeconds);
+        return Flux.fromIterable(ids)
+                .flatMap(id -> offerExpiryPort.scheduleExpiry(id, retryAt))
+                .then();
+    }
+}
@@ -0,0 +1,130 @@
+package com.yowyob.rideandgo.application.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * File de travail du matching des offres (recherche des chauffeurs + notification).
+ * <p>
+ * Les offres créées sont mises dans une file bornée ; un nombre fixe de workers la
+ * vide, ce qui borne la charge sur le pool R2DBC et le service de paiement même en
+ * rafale. File pleine : le matching de l'offre est refusé (compté et loggé) — l'offre
+ * reste PENDING et visible dans la liste des offres disponibles des chauffeurs.
+ * Un matching en erreur est retenté avec backoff exponentiel.
+ */
+@Slf4j
+@Service
+public class OfferMatchingService {
+
+    private record MatchingJob(UUID offerId, Mono<Void> task, long enqueuedAt) {
+    }
+
+    private final Sinks.Many<MatchingJob> queue;
+    private final AtomicInteger pending = new AtomicInteger();
+
+    private final Timer successLatency;
+    private final Timer failureLatency;
+    private final Counter rejected;
+
+    @Value("${application.offer.matching.queue.workers:2}")
+    private int workers;
+
+    @Value("${application.offer.matching.queue.max-retries:2}")
+    private int maxRetries;
+
+    @Value("${application.offer.matching.queue.retry-backoff-ms:500}")
+    private long retryBackoffMs;
+
+    @Value("${application.offer.matching.queue.timeout-seconds:30}")
+    private long timeoutSeconds;
+
+    private Disposable subscription;
+
+    public OfferMatchingService(MeterRegistry meterRegistry,
+            @Value("${application.offer.matching.queue.capacity:1000}") int capacity) {
+        this.queue = Sinks.many().unicast().onBackpressureBuffer(new ArrayBlockingQueue<>(capacity));
+        Gauge.builder("rideandgo.matching.queue.depth", pending, AtomicInteger::get)
+                .description("Offres en attente de matching")
+                .register(meterRegistry);
+        this.successLatency = Timer.builder("rideandgo.matching.latency")
+                .description("Durée du matching d'une offre, attente en file comprise")
+                .tag("result", "success")
+                .register(meterRegistry);
+        this.failureLatency = Timer.builder("rideandgo.matching.latency")
+                .description("Durée du matching d'une offre, attente en file comprise")
+                .tag("result", "failed")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("rideandgo.matching.rejected")
+                .description("Offres non matchées car la file était pleine")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        // flatMap ne demande que `workers` éléments à la fois : le reste attend dans la file
+        subscription = queue.asFlux()
+                .flatMap(this::run, Math.max(workers, 1))
+                .subscribe();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (subscription != null) {
+            subscription.dispose();
+        }
+    }
+
+    /**
+     * Met en file le matching d'une offre. La tâche n'est souscrite que par un worker.
+     * @return false si la file est pleine (matching abandonné).
+     */
+    public boolean submit(UUID offerId, Mono<Void> task) {
+        Sinks.EmitResult result;
+        // Sinks.many() n'accepte pas d'émissions concurrentes
+        synchronized (queue) {
+            pending.incrementAndGet();
+            result = queue.tryEmitNext(new MatchingJob(offerId, task, System.nanoTime()));
+        }
+        if (result.isFailure()) {
+            pending.decrementAndGet();
+            rejected.increment();
+            log.warn("⚠️ Matching queue full ({}), offer {} will not be pushed to drivers", result, offerId);
+            return false;
+        }
+        return true;
+    }
+
+    private Mono<Void> run(MatchingJob job) {
+        pending.decrementAndGet();
+        return job.task()
+                .timeout(Duration.ofSeconds(timeoutSeconds))
+                .retryWhen(Retry.backoff(maxRetries, Duration.ofMillis(retryBackoffMs))
+                        .doBeforeRetry(signal -> log.warn("🔁 Retrying matching of offer {} (attempt {}): {}",
+                                job.offerId(), signal.totalRetries() + 1, signal.failure().getMessage())))
+                .doOnSuccess(done -> successLatency.record(System.nanoTime() - job.enqueuedAt(),
+                        TimeUnit.NANOSECONDS))
+                .onErrorResume(e -> {
+                    failureLatency.record(System.nanoTime() - job.enqueuedAt(),
+                            TimeUnit.NANOSECONDS);
+                    log.error("❌ Matching failed for offer {}", job.offerId(), e);
+                    return Mono.empty();
+                });
+    }
+}
@@ -15,12 +15,18 @@ import com.yowyob.rideandgo.infrastructure.adapters.inbound.rest.dto.SendNotific
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
-import java.time.LocalDateTime;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.context.ReactiveSecurityContextHolder;
@@ -29,6 +35,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
 
 @Slf4j
 @Service
@@ -46,6 +53,9 @@ public class OfferService implements
     private final RideRepositoryPort rideRepositoryPort;
     private final LocationCachePort locationCachePort;
     private final EtaCalculatorService etaCalculatorService;
+    private final DriverSearchService driverSearchService;
+    private final DispatchScoringService dispatchScoringService;
+    private final OfferMatchingService offerMatchingService;
     private final TrackingCalculatorService trackingCalculatorService;
     private final DriverRepositoryPort driverRepositoryPort;
     private final VehicleRepositoryPort vehicleRepositoryPort;
@@ -54,7 +64,8 @@ public class OfferService implements
     private final NotificationHistoryRepositoryPort historyRepositoryPort;
     private final UserDeviceRepositoryPort userDeviceRepositoryPort;
     private final ExternalUserPort externalUserPort;
-    private final OfferCachePort cache;
+    private final OfferFeedPort offerFeedPort;
+    private final OfferExpiryPort offerExpiryPort;
     private final ObjectMapper objectMapper;
 
     @Value("${application.payment.commission-rate:0.10}")
@@ -74,6 +85,18 @@ public class OfferService implements
     @Value("${application.offer.search-radius-km:20.0}")
     private double searchRadius;
 
+    @Value("${application.offer.scoring.max-notified:20}")
+    private int maxNotifiedDrivers;
+
+    @Value("${application.offer.expiry.ttl-minutes:30}")
+    private long offerTtlMinutes;
+
+    @Value("${application.offer.admin.max-page-size:500}")
+    private int maxAdminPageSize;
+
+    @Value("${application.offer.admin.enrich-concurrency:4}")
+    private int adminEnrichConcurrency;
+
     // ==================================================================================
     // 1. CRÉATION D'OFFRE (PASSAGER)
     // ==================================================================================
@@ -105,8 +128,9 @@ public class OfferService implements
                     // On utilise updateOfferState pour la cohérence DB/Redis Geo
                     return updateOfferState(offer, OfferState.PENDING)
                             .flatMap(saved -> {
-                                // Lancement asynchrone du matching
-                                this.notifyNearbyDrivers(saved).subscribe();
+                                // Matching asynchrone, via la file bornée
+                                offerMatchingService.submit(saved.id(),
+                                        Mono.defer(() -> this.notifyNearbyDrivers(saved)));
                                 return Mono.just(saved);
                             });
                 });
@@ -115,40 +139,96 @@ public class OfferService implements
     private Mono<Offer> updateOfferState(Offer offer, OfferState newState) {
         Offer updated = offer.withState(newState);
         return repository.save(updated)
-                .flatMap(saved -> {
-                    // Nettoyage de l'index de recherche si l'offre n'est plus "ouverte"
-                    if (newState != OfferState.PENDING && newState != OfferState.BID_RECEIVED) {
-                        return locationCachePort.removeOfferLocation(saved.id()).thenReturn(saved);
-                    }
-                    // Indexation si l'offre est active
-                    return locationCachePort.saveOfferLocation(saved.id(), saved.startLat(), saved.startLon())
-                            .thenReturn(saved);
-                })
-                .flatMap(saved -> cache.saveInCache(saved).thenReturn(saved));
+                .flatMap(saved -> applyStateChange(saved, newState));
+    }
+
+    /**
+     * Effets d'une transition déjà persistée : index de recherche, date limite et flux
+     * temps réel.
+     */
+    private Mono<Offer> applyStateChange(Offer saved, OfferState newState) {
+        Mono<Void> index;
+        if (newState != OfferState.PENDING && newState != OfferState.BID_RECEIVED) {
+            // Nettoyage de l'index de recherche si l'offre n'est plus "ouverte"
+            index = locationCachePort.removeOfferLocation(saved.id()).then();
+        } else {
+            // Indexation si l'offre est active
+            index = locationCachePort.saveOfferLocation(saved.id(), saved.startLat(), saved.startLon()).then();
+        }
+        return index
+                .then(updateExpiry(saved, newState))
+                .then(publishFeedEvent(saved, newState))
+                .thenReturn(saved);
+    }
+
+    /**
+     * Date limite posée à l'ouverture de l'offre (une candidature ne la repousse pas),
+     * retirée dès que l'offre n'est plus ouverte.
+     */
+    private Mono<Void> updateExpiry(Offer offer, OfferState newState) {
+        Mono<Void> update = switch (newState) {
+            case PENDING -> offerExpiryPort.scheduleExpiry(offer.id(),
+                    Instant.now().plus(Duration.ofMinutes(offerTtlMinutes)));
+            case BID_RECEIVED -> Mono.empty();
+            default -> offerExpiryPort.cancelExpiry(offer.id());
+        };
+        return update.onErrorResume(e -> {
+            log.warn("⚠️ Failed to update expiry of offer {}: {}", offer.id(), e.getMessage());
+            return Mono.empty();
+        });
+    }
+
+    /**
+     * Publie le changement d'état sur le flux temps réel des chauffeurs. Un échec ne
+     * bloque pas la transition (les chauffeurs en polling ne sont pas concernés).
+     */
+    private Mono<Void> publishFeedEvent(Offer offer, OfferState newState) {
+        OfferFeedPort.EventType type = switch (newState) {
+            case PENDING -> OfferFeedPort.EventType.CREATED;
+            case DRIVER_SELECTED, VALIDATED -> OfferFeedPort.EventType.TAKEN;
+            case CANCELLED -> OfferFeedPort.EventType.CANCELLED;
+            case BID_RECEIVED -> null; // Toujours disponible
+        };
+        if (type == null) {
+            return Mono.empty();
+        }
+        return offerFeedPort
+                .publish(new OfferFeedPort.OfferFeedEvent(type, offer.id(), offer.startLat(), offer.startLon()))
+                .onErrorResume(e -> {
+                    log.warn("⚠️ Failed to publish {} event for offer {}: {}", type, offer.id(), e.getMessage());
+                    return Mono.empty();
+                });
     }
 
     private Mono<Void> notifyNearbyDrivers(Offer offer) {
-        log.info("🎯 Start matching for Offer {} in radius {}km", offer.id(), searchRadius);
-
-        // 1. Trouver les chauffeurs éligibles (On récupère l'objet User complet)
-        return locationCachePort.findNearbyDrivers(offer.startLat(), offer.startLon(), searchRadius)
-                .flatMap(geoResult -> {
-                    UUID driverId = geoResult.driverId();
-                    return driverRepositoryPort.findById(driverId)
-                            .filter(d -> d.isOnline() && d.isProfileValidated())
-                            .flatMap(driver -> paymentPort.getWalletByOwnerId(driverId)
-                                    .filter(wallet -> wallet.balance() >= (offer.price() * commissionRate))
-                                    .flatMap(wallet -> userRepositoryPort.findUserById(driverId))); // On retourne le
-                                                                                                    // User
+        log.info("🎯 Start matching for Offer {}", offer.id());
+
+        double requiredBalance = offer.price() * commissionRate;
+
+        // 1. Candidats géographiques (anneaux, plafonnés) déjà filtrés par l'ensemble
+        // d'éligibilité Redis -> confirmation + emails en une requête -> soldes en un lot
+        return driverSearchService.findCandidates(offer.startLat(), offer.startLon())
+                .flatMap(candidates -> {
+                    Map<UUID, Double> distances = new HashMap<>();
+                    candidates.forEach(c -> distances.put(c.driverId(), c.distanceKm()));
+                    return driverRepositoryPort.findEligibleDrivers(distances.keySet())
+                            .collectMap(DriverRepositoryPort.EligibleDriver::id)
+                            .flatMap(eligible -> paymentPort.getWalletsByOwnerIds(eligible.keySet())
+                                    .filter(wallet -> wallet.balance() >= requiredBalance)
+                                    .mapNotNull(wallet -> eligible.get(wallet.ownerId()))
+                                    .collectList())
+                            // 2. Classement (distance, note, avis, acceptation, inactivité)
+                            .map(drivers -> rankDrivers(drivers, distances));
                 })
-                .collectList()
-                .flatMap(users -> {
-                    if (users.isEmpty()) {
-                        log.warn("⚠️ No eligible drivers found within {}km for offer {}", searchRadius, offer.id());
+                .flatMap(drivers -> {
+                    if (drivers.isEmpty()) {
+                        log.warn("⚠️ No eligible drivers found for offer {}", offer.id());
                         return Mono.empty();
                     }
 
-                    log.info("📢 Notifying {} nearby drivers for offer {}", users.size(), offer.id());
+                    log.info("📢 Notifying {} nearby drivers for offer {}", drivers.size(), offer.id());
+                    dispatchScoringService.recordOffered(
+                            drivers.stream().map(DriverRepositoryPort.EligibleDriver::id).toList());
 
                     Map<String, String> data = Map.of(
                             "offerId", offer.id().toString(),
@@ -158,8 +238,8 @@ public class OfferService implements
                     // 2. Préparer la liste des emails pour l'envoi groupé
                     List<String> emails = new ArrayList<>();
 
-                    // 3. Préparer les sauvegardes en base (Historique)
-                    List<Mono<Void>> historySaves = new ArrayList<>();
+                    // 3. Préparer les sauvegardes en base (Historique), écrites en un seul INSERT
+                    List<Notification> histories = new ArrayList<>(drivers.size());
 
                     String json = "{}";
                     try {
@@ -167,24 +247,28 @@ public class OfferService implements
                     } catch (Exception e) {
                     }
 
-                    for (User user : users) {
-                        emails.add(user.email());
+                    // Contenu commun à toutes les entrées : construit une seule fois
+                    String title = "Nouvelle course disponible";
+                    String message = "Une course de " + offer.price() + " F est disponible à " + offer.startPoint();
+
+                    for (DriverRepositoryPort.EligibleDriver driver : drivers) {
+                        emails.add(driver.email());
 
                         // Création de l'entrée historique pour CHAQUE chauffeur
                         Notification history = Notification.builder()
                                 .id(Utils.generateUUID())
-                                .userId(user.id())
-                                .title("Nouvelle course disponible")
-                                .message("Une course de " + offer.price() + " F est disponible à " + offer.startPoint())
+                                .userId(driver.id())
+                                .title(title)
+                                .message(message)
                                 .type("OFFER")
                                 .isRead(false)
                                 .dataJson(json)
                                 .build();
 
-                        historySaves.add(historyRepositoryPort.save(history));
+                        histories.add(history);
                     }
 
-                    // 4. Exécuter : Sauvegarde Historique (Parallèle) ET Envoi Push (Groupé)
+                    // 4. Exécuter : Sauvegarde Historique (Groupée) ET Envoi Push (Groupé)
                     Mono<Boolean> sendTask = sendNotificationPort.sendNotification(
                             SendNotificationRequest.builder()
                                     .notificationType(NotificationType.EMAIL)
@@ -193,11 +277,27 @@ public class OfferService implements
                                     .data(data)
                                     .build());
 
-                    // On lance tout en même temps
-                    return Flux.merge(historySaves).then(sendTask).then();
+                    return historyRepositoryPort.saveAll(histories).then(sendTask).then();
                 });
     }
 
+    private List<DriverRepositoryPort.EligibleDriver> rankDrivers(List<DriverRepositoryPort.EligibleDriver> drivers,
+            Map<UUID, Double> distances) {
+        Map<UUID, DriverRepositoryPort.EligibleDriver> byId = new HashMap<>();
+        List<DispatchScoringService.Candidate> candidates = new ArrayList<>(drivers.size());
+        for (DriverRepositoryPort.EligibleDriver driver : drivers) {
+            byId.put(driver.id(), driver);
+            candidates.add(new DispatchScoringService.Candidate(
+                    driver.id(),
+                    distances.getOrDefault(driver.id(), 0.0),
+                    driver.rating() != null ? driver.rating() : 0.0,
+                    driver.totalReviewsCount() != null ? driver.totalReviewsCount() : 0));
+        }
+        return dispatchScoringService.rank(candidates, maxNotifiedDrivers).stream()
+                .map(byId::get)
+                .toList();
+    }
+
     private Mono<User> ensureUserExistsLocally(UUID userId) {
         return userRepositoryPort.findUserById(userId)
                 .switchIfEmpty(Mono.defer(() -> externalUserPort.fetchRemoteUserById(userId)
@@ -216,8 +316,10 @@ public class OfferService implements
                 locationCachePort.getLocation(driverId)
                         .flatMapMany(loc -> {
                             log.info("📍 Driver {} location found, searching within {}km", driverId, searchRadius);
+                            // Ids triés par distance, puis chargement groupé (ordre conservé)
                             return locationCachePort.findNearbyOfferIds(loc.latitude(), loc.longitude(), searchRadius)
-                                    .flatMap(repository::findById);
+                                    .collectList()
+                                    .flatMapMany(repository::findAllByIds);
                         })
                         // TENTATIVE 2 : Fallback si pas de position ou pas d'offres proches
                         .switchIfEmpty(Flux.defer(() -> {
@@ -228,11 +330,75 @@ public class OfferService implements
                         // FILTRAGE & ENRICHISSEMENT (Commun aux deux cas)
                         .filter(o -> o.state() == OfferState.PENDING || o.state() == OfferState.BID_RECEIVED)
                         .distinct(Offer::id) // Évite les doublons si une offre est dans les deux flux
-                        .flatMap(this::enrichOffer)); 
+                        .flatMapSequential(this::enrichOffer)); 
+    }
+
+    @Override
+    public Flux<OfferFeedUpdate> streamAvailableOffers() {
+        return ReactiveSecurityContextHolder.getContext()
+                .map(ctx -> UUID.fromString(ctx.getAuthentication().getName()))
+                .flatMapMany(driverId -> {
+                    // Offres déjà envoyées à ce chauffeur : seules leurs suppressions l'intéressent
+                    Set<UUID> sent = ConcurrentHashMap.newKeySet();
+                    // Dernière position connue du chauffeur (nulle : pas de filtre de zone)
+                    AtomicReference<LocationCachePort.Location> area = new AtomicReference<>();
+
+                    Flux<OfferFeedUpdate> tracking = locationCachePort.watchLocation(driverId)
+                            .flatMapMany(updates -> updates.doOnNext(area::set))
+                            .thenMany(Flux.empty());
+
+                    // Abonnement confirmé avant la lecture initiale : aucun événement n'est perdu.
+                    // Ceux reçus pendant la lecture sont retenus jusqu'à sa fin : traité plus tôt,
+                    // le retrait d'une offre pas encore envoyée serait ignoré, puis l'offre envoyée
+                    return offerFeedPort.events().flatMapMany(events -> {
+                        Sinks.Empty<Void> snapshotDone = Sinks.empty();
+
+                        Flux<OfferFeedUpdate> deltas = events
+                                .delayUntil(event -> snapshotDone.asMono())
+                                .concatMap(event -> toFeedUpdate(event, area.get(), sent));
+
+                        Flux<OfferFeedUpdate> snapshot = locationCachePort.getLocation(driverId)
+                                .doOnNext(area::set)
+                                .thenMany(getAvailableOffers())
+                                .filter(offer -> sent.add(offer.id()))
+                                .map(offer -> new OfferFeedUpdate(UpdateType.AVAILABLE, offer.id(), offer))
+                                .doOnTerminate(snapshotDone::tryEmitEmpty);
+
+                        return Flux.merge(deltas, snapshot, tracking);
+                    });
+                });
+    }
+
+    private Mono<OfferFeedUpdate> toFeedUpdate(OfferFeedPort.OfferFeedEvent event, LocationCachePort.Location area,
+            Set<UUID> sent) {
+        if (event.type() != OfferFeedPort.EventType.CREATED) {
+            if (!sent.remove(event.offerId())) {
+                return Mono.empty();
+            }
+            UpdateType type = event.type() == OfferFeedPort.EventType.TAKEN ? UpdateType.TAKEN
+                    : UpdateType.CANCELLED;
+            return Mono.just(new OfferFeedUpdate(type, event.offerId(), null));
+        }
+
+        if (area != null && event.latitude() != null && event.longitude() != null
+                && trackingCalculatorService.calculateDistance(area.latitude(), area.longitude(),
+                        event.latitude(), event.longitude()) > searchRadius) {
+            return Mono.empty();
+        }
+        if (!sent.add(event.offerId())) {
+            return Mono.empty();
+        }
+        return repository.findById(event.offerId())
+                .filter(o -> o.state() == OfferState.PENDING || o.state() == OfferState.BID_RECEIVED)
+                .flatMap(this::enrichOffer)
+                .map(offer -> new OfferFeedUpdate(UpdateType.CREATED, offer.id(), offer));
     }
 
-    public Flux<LandingOfferResponse> getLatestPublicOffers(int limit) {
-        return repository.findLatestPending(limit)
+    public Flux<LandingOfferResponse> getLatestPublicOffers(int limit, String cursor) {
+        OfferRepositoryPort.OfferCursor after = cursor != null && !cursor.isBlank()
+                ? OfferRepositoryPort.OfferCursor.parse(cursor)
+                : null;
+        return repository.findLatestPending(limit, after)
                 .map(offer -> new LandingOfferResponse(
                         offer.startPoint(),
                         offer.endPoint(),
@@ -242,10 +408,10 @@ public class OfferService implements
                         offer.endLon(), // ✅
                         offer.price(),
                         offer.departureTime(),
-                        // On récupère la date de création depuis le domaine
-                        // Note: Assure-toi que ton OfferMapper mappe bien createdDate vers createdAt
-                        LocalDateTime.now() // LocalDateTime.now() // Par défaut si null, mais utilise offer.createdAt()
-                ));
+                        offer.createdAt(),
+                        offer.createdAt() != null
+                                ? new OfferRepositoryPort.OfferCursor(offer.createdAt(), offer.id()).token()
+                                : null));
     }
 
     // ==================================================================================
@@ -280,6 +446,8 @@ public class OfferService implements
                             // Mise à jour de l'état vers BID_RECEIVED
                             return updateOfferState(offer.withBids(currentBids), OfferState.BID_RECEIVED)
                                     .flatMap(saved -> {
+                                        // Comptée une fois la candidature enregistrée seulement
+                                        dispatchScoringService.recordAccepted(driverId);
                                         saveAndDispatch(
                                                 saved.passengerId(),
                                                 tmplDriverApplied,
@@ -303,8 +471,8 @@ public class OfferService implements
                         return Mono.error(new IllegalArgumentException("Driver has not applied."));
                     }
                     Offer updated = offer.withDriverSelected(driverId);
-                    return repository.save(updated)
-                            .flatMap(saved -> cache.saveInCache(saved).thenReturn(saved))
+                    // Retire l'offre de l'index Geo et prévient les autres chauffeurs
+                    return updateOfferState(updated, OfferState.DRIVER_SELECTED)
                             .flatMap(saved -> {
                                 saveAndDispatch(
                                         driverId,
@@ -341,6 +509,7 @@ public class OfferService implements
                             .flatMap(wallet -> paymentPort.processPayment(wallet.id(), offer.price()))
                             // 2. Mise à jour de l'Offre vers VALIDATED (Retrait de Redis Geo automatique)
                             .then(updateOfferState(offer, OfferState.VALIDATED))
+                            .doOnSuccess(validated -> dispatchScoringService.recordAssigned(driverId))
                             .thenReturn(offer);
                 })
                 .flatMap(offer -> {
@@ -396,6 +565,31 @@ public class OfferService implements
                 });
     }
 
+    // ==================================================================================
+    // 7. EXPIRATION (AUTOMATIQUE)
+    // ==================================================================================
+
+    /**
+     * Annule les offres encore ouvertes parmi celles dont la date limite est passée et
+     * prévient leur passager. La transition est conditionnelle en base : une offre
+     * prise ou annulée entre-temps n'est ni modifiée ni notifiée.
+     * @return le nombre d'offres effectivement annulées.
+     */
+    public Mono<Long> expireOffers(Collection<UUID> offerIds) {
+        return repository.cancelOpenOffers(offerIds)
+                .flatMap(cancelled -> applyStateChange(cancelled, OfferState.CANCELLED)
+                        .doOnNext(saved -> {
+                            log.info("⌛ Offer {} expired without a selected driver", saved.id());
+                            saveAndDispatch(
+                                    saved.passengerId(),
+                                    tmplRideCancelled,
+                                    "Offre expirée",
+                                    "Aucun chauffeur n'a été retenu à temps, votre offre a été annulée.",
+                                    Map.of("offerId", saved.id().toString())).subscribe();
+                        }), 4)
+                .count();
+    }
+
     // ==================================================================================
     // CENTRALISATION : NOTIFICATIONS ET HISTORIQUE
     // ==================================================================================
@@ -481,6 +675,11 @@ public class OfferService implements
                         .build());
     }
 
+    /**
+     * Enrichit toutes les candidatures de l'offre en lot : une requête SQL pour les
+     * profils, un aller-retour Redis pour les positions, un appel par véhicule distinct.
+     * Les candidats sans fiche chauffeur sont écartés.
+     */
     private Mono<Offer> enrichOffer(Offer offer) {
         if (offer.bids() == null || offer.bids().isEmpty()) {
             return Mono.just(offer);
@@ -489,11 +688,26 @@ public class OfferService implements
         LocationCachePort.Location offerStartLoc = new LocationCachePort.Location(
                 offer.startLat() != null ? offer.startLat() : 0.0,
                 offer.startLon() != null ? offer.startLon() : 0.0);
-
-        return Flux.fromIterable(offer.bids())
-                .flatMap(bid -> enrichSingleBid(bid, offerStartLoc))
-                .collectList()
-                .map(offer::withBids);
+        List<UUID> driverIds = offer.bids().stream().map(Bid::driverId).distinct().toList();
+
+        Mono<Map<UUID, DriverRepositoryPort.BidderProfile>> profiles = driverRepositoryPort
+                .findBidderProfiles(driverIds)
+                .collectMap(DriverRepositoryPort.BidderProfile::id)
+                .cache();
+
+        return Mono.zip(profiles,
+                locationCachePort.getLocations(driverIds),
+                profiles.flatMap(byId -> findVehicles(byId.values())))
+                .map(tuple -> offer.withBids(offer.bids().stream()
+                        .filter(bid -> tuple.getT1().containsKey(bid.driverId()))
+                        .map(bid -> {
+                            DriverRepositoryPort.BidderProfile profile = tuple.getT1().get(bid.driverId());
+                            return toEnrichedBid(profile,
+                                    tuple.getT2().getOrDefault(profile.id(), new LocationCachePort.Location(0.0, 0.0)),
+                                    profile.vehicleId() != null ? tuple.getT3().get(profile.vehicleId()) : null,
+                                    offerStartLoc);
+                        })
+                        .toList()));
     }
 
     // ==================================================================================
@@ -502,77 +716,62 @@ public class OfferService implements
 
     public Mono<Offer> getOfferWithEnrichedBids(UUID offerId) {
         return repository.findById(offerId)
-                .flatMap(offer -> {
-                    if (offer.bids() == null || offer.bids().isEmpty())
-                        return Mono.just(offer);
-
-                    // CORRECTION ICI AUSSI
-                    LocationCachePort.Location offerStartLoc = new LocationCachePort.Location(
-                            offer.startLat() != null ? offer.startLat() : 0.0,
-                            offer.startLon() != null ? offer.startLon() : 0.0);
-
-                    return Flux.fromIterable(offer.bids())
-                            .flatMap(bid -> enrichSingleBid(bid, offerStartLoc))
-                            .collectList()
-                            .map(offer::withBids);
-                });
+                .flatMap(this::enrichOffer);
+    }
+
+    // Un appel par véhicule distinct, en parallèle
+    private Mono<Map<UUID, Vehicle>> findVehicles(Collection<DriverRepositoryPort.BidderProfile> profiles) {
+        return Flux.fromStream(profiles.stream()
+                .map(DriverRepositoryPort.BidderProfile::vehicleId)
+                .filter(Objects::nonNull)
+                .distinct())
+                .flatMap(vehicleId -> vehicleRepositoryPort.getVehicleById(vehicleId)
+                        .map(vehicle -> Map.entry(vehicleId, vehicle)))
+                .collectMap(Map.Entry::getKey, Map.Entry::getValue);
     }
 
     /**
-     * Orchestre la récupération des données réelles pour un seul chauffeur.
+     * Construit la candidature affichée à partir des données déjà chargées.
      */
-    private Mono<Bid> enrichSingleBid(Bid bid, LocationCachePort.Location pLoc) {
-        UUID dId = bid.driverId();
-
-        return Mono.zip(
-                userRepositoryPort.findUserById(dId),
-                driverRepositoryPort.findById(dId),
-                locationCachePort.getLocation(dId).defaultIfEmpty(new LocationCachePort.Location(0.0, 0.0)))
-                .flatMap(tuple -> {
-                    User user = tuple.getT1();
-                    Driver driver = tuple.getT2();
-                    LocationCachePort.Location dLoc = tuple.getT3();
-
-                    double distance = 0.0;
-                    int eta = 0;
-
-                    // Calcul temps réel si les deux positions sont connues
-                    if (pLoc.latitude() != 0.0 && dLoc.latitude() != 0.0) {
-                        distance = trackingCalculatorService.calculateDistance(
-                                pLoc.latitude(), pLoc.longitude(),
-                                dLoc.latitude(), dLoc.longitude());
-                        eta = trackingCalculatorService.calculateEtaInMinutes(distance);
-                    }
+    private Bid toEnrichedBid(DriverRepositoryPort.BidderProfile profile, LocationCachePort.Location dLoc,
+            Vehicle vehicle, LocationCachePort.Location pLoc) {
+        double distance = 0.0;
+        int eta = 0;
+
+        // Calcul temps réel si les deux positions sont connues
+        if (pLoc.latitude() != 0.0 && dLoc.latitude() != 0.0) {
+            distance = trackingCalculatorService.calculateDistance(
+                    pLoc.latitude(), pLoc.longitude(),
+                    dLoc.latitude(), dLoc.longitude());
+            eta = trackingCalculatorService.calculateEtaInMinutes(distance);
+        }
 
-                    final double finalDistance = distance;
-                    final int finalEta = eta;
-
-                    return Mono.justOrEmpty(driver.vehicleId())
-                            .flatMap(vehicleRepositoryPort::getVehicleById)
-                            .defaultIfEmpty(Vehicle.builder().brand("N/A").build())
-                            .map(v -> Bid.builder()
-                                    .driverId(dId)
-                                    .driverName(user.firstName() + " " + user.lastName())
-                                    .driverPhone(user.telephone())
-                                    .driverPhoto(user.photoUri())
-                                    .latitude(dLoc.latitude())
-                                    .longitude(dLoc.longitude())
-                                    .distanceToPassenger(finalDistance)
-                                    .eta(finalEta)
-                                    .brand(v.brand())
-                                    .model(v.vehicleModelId())
-                                    .licensePlate(v.registrationNumber())
-                                    .build());
-                });
+        Vehicle v = vehicle != null ? vehicle : Vehicle.builder().brand("N/A").build();
+        return Bid.builder()
+                .driverId(profile.id())
+                .driverName(profile.firstName() + " " + profile.lastName())
+                .driverPhone(profile.telephone())
+                .driverPhoto(profile.photoUri())
+                .latitude(dLoc.latitude())
+                .longitude(dLoc.longitude())
+                .distanceToPassenger(distance)
+                .eta(eta)
+                .brand(v.brand())
+                .model(v.vehicleModelId())
+                .licensePlate(v.registrationNumber())
+                .build();
     }
     // ==================================================================================
     // CRUD ET GESTION
     // ==================================================================================
 
     @Override
-    public Flux<Offer> getAllOffers() {
-        return repository.findAll()
-                .flatMap(this::enrichOffer); // ✅ Enrichit toute la liste
+    public Flux<Offer> getOffers(OfferRepositoryPort.OfferFilter filter, OfferRepositoryPort.OfferCursor after,
+            int limit, boolean enrich) {
+        int pageSize = Math.max(1, Math.min(limit, maxAdminPageSize));
+        Flux<Offer> page = repository.findPage(filter, after, pageSize);
+        // Enrichissement borné et ordonné : la page reste triée pendant le streaming
+        return enrich ? page.flatMapSequential(this::enrichOffer, adminEnrichConcurrency) : page;
     }
 
     @Override
@@ -608,8 +807,7 @@ public class OfferService implements
                             existing.version(),
                             existing.createdAt());
                     return repository.save(updated);
-                })
-                .flatMap(saved -> cache.saveInCache(saved).thenReturn(saved));
+                });
     }
 
     @Override
@@ -8,6 +8,7 @@ import com.yowyob.rideandgo.domain.model.enums.RideState;
 import com.yowyob.rideandgo.domain.ports.in.UpdateRideStatusUseCase;
 import com.yowyob.rideandgo.domain.ports.out.DriverRepositoryPort;
 import com.yowyob.rideandgo.domain.ports.out.OfferRepositoryPort;
+import com.yowyob.rideandgo.domain.ports.out.RideFeedPort;
 import com.yowyob.rideandgo.domain.ports.out.RideRepositoryPort;
 import com.yowyob.rideandgo.domain.ports.out.UserRepositoryPort;
 import com.yowyob.rideandgo.domain.ports.out.VehicleRepositoryPort;
@@ -31,6 +32,7 @@ public class RideService implements UpdateRideStatusUseCase {
     private final UserRepositoryPort userRepository;
     private final DriverRepositoryPort driverRepository;
     private final VehicleRepositoryPort vehicleRepository;
+    private final RideFeedPort rideFeedPort;
 
     @Override
     @Transactional
@@ -74,7 +76,15 @@ public class RideService implements UpdateRideStatusUseCase {
                             .build();
 
                     return rideRepository.save(updatedRide)
-                            .doOnSuccess(r -> log.info("✅ Ride {} is now {}", rideId, newStatus));
+                            .doOnSuccess(r -> log.info("✅ Ride {} is now {}", rideId, newStatus))
+                            // Clôt les flux de suivi en direct ouverts sur toutes les instances
+                            .flatMap(saved -> rideFeedPort.publishState(saved.id(), saved.state())
+                                    .onErrorResume(e -> {
+                                        log.warn("⚠️ Failed to publish state of ride {}: {}", rideId,
+                                                e.getMessage());
+                                        return Mono.empty();
+                                    })
+                                    .thenReturn(saved));
                 });
     }
 
@@ -0,0 +1,58 @@
+package com.yowyob.rideandgo.application.service;
+
+import com.yowyob.rideandgo.domain.ports.out.LocationCachePort;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Retire de la carte Live les drivers qui n'envoient plus de position (application
+ * tuée, perte réseau prolongée). Sans ce balayage, ils restent "à proximité" pour
+ * toujours et chaque matching les rejette un par un après des lectures en base.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class StaleDriverSweeperService {
+
+    private final LocationCachePort locationCachePort;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    // Doit rester supérieur à application.location.filter.max-silence-seconds (un
+    // driver immobile n'envoie qu'un fix à cette fréquence)
+    @Value("${application.location.stale.ttl-seconds:120}")
+    private long ttlSeconds;
+
+    @Value("${application.location.stale.batch-size:500}")
+    private int batchSize;
+
+    @Scheduled(fixedDelayString = "${application.location.stale.sweep-interval-ms:30000}")
+    public void sweepStaleDrivers() {
+        if (!running.compareAndSet(false, true)) {
+            return;
+        }
+        Instant threshold = Instant.now().minusSeconds(ttlSeconds);
+
+        // Lots successifs tant que le lot précédent était plein
+        locationCachePort.evictStaleLocations(threshold, batchSize)
+                .expand(evicted -> evicted >= batchSize
+                        ? locationCachePort.evictStaleLocations(threshold, batchSize)
+                        : Mono.empty())
+                .reduce(0L, Long::sum)
+                .doFinally(signal -> running.set(false))
+                .subscribe(
+                        total -> {
+                            if (total > 0) {
+                                log.info("🧹 Removed {} stale drivers from live map (silent > {}s)", total, ttlSeconds);
+                            }
+                        },
+                        e -> log.error("❌ Error during stale driver sweep", e));
+    }
+}
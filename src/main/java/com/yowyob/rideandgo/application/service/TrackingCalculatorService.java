@@ -14,6 +14,21 @@ public class TrackingCalculatorService {
      * @return Distance en kilomètres.
      */
     public double calculateDistance(double lat1, double lon1, double lat2, double lon2) {
+        double distance = haversineKm(lat1, lon1, lat2, lon2);
+
+        // Arrondi à 2 décimales (ex: 1.54 km)
+        return Math.round(distance * 100.0) / 100.0;
+    }
+
+    /**
+     * Distance non arrondie, pour les comparaisons fines (filtrage GPS).
+     * @return Distance en mètres.
+     */
+    public double calculateDistanceMeters(double lat1, double lon1, double lat2, double lon2) {
+        return haversineKm(lat1, lon1, lat2, lon2) * 1000.0;
+    }
+
+    private double haversineKm(double lat1, double lon1, double lat2, double lon2) {
         if ((lat1 == lat2) && (lon1 == lon2)) {
             return 0.0;
         }
@@ -27,10 +42,7 @@ public class TrackingCalculatorService {
         
         double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
         
-        double distance = EARTH_RADIUS_KM * c;
-        
-        // Arrondi à 2 décimales (ex: 1.54 km)
-        return Math.round(distance * 100.0) / 100.0;
+        return EARTH_RADIUS_KM * c;
     }
 
     /**
@@ -1,22 +1,23 @@
 package com.yowyob.rideandgo.application.service;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.yowyob.rideandgo.application.utils.Utils;
 import com.yowyob.rideandgo.domain.model.DriverTrajectory;
 import com.yowyob.rideandgo.domain.ports.out.DriverTrajectoryRepositoryPort;
+import com.yowyob.rideandgo.infrastructure.adapters.outbound.cache.TrajectoryCodec;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.redis.core.ReactiveRedisTemplate;
 import org.springframework.data.redis.core.ScanOptions;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
-import java.util.ArrayList;
-import java.util.List;
 import java.util.UUID;
 
 @Slf4j
@@ -26,25 +27,52 @@ public class TrajectoryCronService {
 
     private final ReactiveRedisTemplate<String, Object> redisTemplate;
     private final DriverTrajectoryRepositoryPort trajectoryRepository;
-    private final ObjectMapper objectMapper;
 
-    private static final String PREFIX_HISTORY = "history:driver:";
+    // Buffers binaires (voir TrajectoryCodec)
+    private static final String PREFIX_TRAJECTORY = "trajectory:driver:";
+
+    // Ancien format (listes de strings "lat,lon,timestamp") : uniquement vidé, plus
+    // écrit. Ces clés expirent d'elles-mêmes (TTL 1h).
+    private static final String PREFIX_LEGACY_HISTORY = "history:driver:";
 
     @Scheduled(fixedRateString = "${application.trajectory.dump-interval-ms:600000}")
     public void processTrajectories() {
         log.info("⏰ Starting Trajectory Dump (Interval: {}ms)...",
                 System.getProperty("application.trajectory.dump-interval-ms", "600000"));
 
-        redisTemplate.scan(ScanOptions.scanOptions().match(PREFIX_HISTORY + "*").build())
-                .flatMap(this::processSingleDriverHistory)
+        Flux.merge(
+                redisTemplate.scan(ScanOptions.scanOptions().match(PREFIX_TRAJECTORY + "*").build())
+                        .flatMap(this::processSingleDriverBuffer),
+                redisTemplate.scan(ScanOptions.scanOptions().match(PREFIX_LEGACY_HISTORY + "*").build())
+                        .flatMap(this::processSingleDriverLegacyHistory))
                 .subscribe(
                         null,
                         e -> log.error("❌ Error during trajectory dump", e),
                         () -> log.info("✅ Trajectory Dump cycle finished."));
     }
 
-    private Mono<Void> processSingleDriverHistory(String key) {
-        UUID driverId = UUID.fromString(key.replace(PREFIX_HISTORY, ""));
+    private Mono<Void> processSingleDriverBuffer(String key) {
+        UUID driverId = UUID.fromString(key.replace(PREFIX_TRAJECTORY, ""));
+        ByteBuffer rawKey = ByteBuffer.wrap(key.getBytes(StandardCharsets.UTF_8));
+
+        // GETDEL : lecture et suppression atomiques, aucun point ajouté entre les deux
+        // ne peut être perdu
+        return redisTemplate.execute(connection -> connection.stringCommands().getDel(rawKey))
+                .next()
+                .flatMap(buffer -> {
+                    TrajectoryAccumulator acc = new TrajectoryAccumulator();
+                    try {
+                        TrajectoryCodec.decode(buffer, acc);
+                    } catch (RuntimeException e) {
+                        log.error("❌ Corrupted trajectory buffer for driver {}", driverId, e);
+                        return Mono.empty();
+                    }
+                    return saveToPostgres(driverId, acc);
+                });
+    }
+
+    private Mono<Void> processSingleDriverLegacyHistory(String key) {
+        UUID driverId = UUID.fromString(key.replace(PREFIX_LEGACY_HISTORY, ""));
 
         // 1. Récupérer tous les points (LRANGE 0 -1)
         return redisTemplate.opsForList().range(key, 0, -1)
@@ -54,57 +82,74 @@ public class TrajectoryCronService {
                     if (points.isEmpty())
                         return Mono.empty();
 
+                    TrajectoryAccumulator acc = new TrajectoryAccumulator();
+                    try {
+                        for (String raw : points) {
+                            String[] parts = raw.split(",");
+                            acc.accept(Double.parseDouble(parts[0]), Double.parseDouble(parts[1]),
+                                    Long.parseLong(parts[2]));
+                        }
+                    } catch (Exception e) {
+                        log.error("❌ Error parsing trajectory for driver {}", driverId, e);
+                        return redisTemplate.delete(key).then();
+                    }
+
                     // 2. Supprimer la clé dans Redis immédiatement (Atout: On évite de traiter 2
                     // fois)
                     return redisTemplate.delete(key)
-                            .then(saveToPostgres(driverId, points));
+                            .then(saveToPostgres(driverId, acc));
                 });
     }
 
-    private Mono<Void> saveToPostgres(UUID driverId, List<String> rawPoints) {
-        try {
-            List<Object[]> trajectoryArray = new ArrayList<>();
-            long firstTs = Long.MAX_VALUE;
-            long lastTs = Long.MIN_VALUE;
-
-            for (String raw : rawPoints) {
-                String[] parts = raw.split(",");
-                double lat = Double.parseDouble(parts[0]);
-                double lon = Double.parseDouble(parts[1]);
-                long ts = Long.parseLong(parts[2]);
-
-                // On prépare le tableau pour le JSON [[lat, lon, ts], ...]
-                trajectoryArray.add(new Object[] { lat, lon, ts });
-
-                if (ts < firstTs)
-                    firstTs = ts;
-                if (ts > lastTs)
-                    lastTs = ts;
-            }
-
-            // Conversion des timestamps en LocalDateTime
-            LocalDateTime start = LocalDateTime.ofInstant(Instant.ofEpochSecond(firstTs), ZoneId.systemDefault());
-            LocalDateTime end = LocalDateTime.ofInstant(Instant.ofEpochSecond(lastTs), ZoneId.systemDefault());
-
-            // Sérialisation du tableau en String JSON
-            String json = objectMapper.writeValueAsString(trajectoryArray);
+    private Mono<Void> saveToPostgres(UUID driverId, TrajectoryAccumulator acc) {
+        if (acc.count == 0) {
+            return Mono.empty();
+        }
 
-            DriverTrajectory trajectory = DriverTrajectory.builder()
-                    .id(Utils.generateUUID())
-                    .driverId(driverId)
-                    .startTime(start)
-                    .endTime(end)
-                    .pointsCount(rawPoints.size())
-                    .trajectoryDataJson(json)
-                    .build();
+        // Conversion des timestamps en LocalDateTime
+        LocalDateTime start = LocalDateTime.ofInstant(Instant.ofEpochSecond(acc.firstTs), ZoneId.systemDefault());
+        LocalDateTime end = LocalDateTime.ofInstant(Instant.ofEpochSecond(acc.lastTs), ZoneId.systemDefault());
+
+        DriverTrajectory trajectory = DriverTrajectory.builder()
+                .id(Utils.generateUUID())
+                .driverId(driverId)
+                .startTime(start)
+                .endTime(end)
+                .pointsCount(acc.count)
+                .trajectoryDataJson(acc.toJson())
+                .build();
+
+        return trajectoryRepository.save(trajectory)
+                .doOnSuccess(v -> log.debug("💾 Saved trajectory for driver {} ({} points)", driverId,
+                        acc.count));
+    }
 
-            return trajectoryRepository.save(trajectory)
-                    .doOnSuccess(v -> log.debug("💾 Saved trajectory for driver {} ({} points)", driverId,
-                            rawPoints.size()));
+    /**
+     * Construit directement le JSON [[lat, lon, ts], ...] au fil du décodage, sans
+     * objet intermédiaire par point.
+     */
+    private static final class TrajectoryAccumulator implements TrajectoryCodec.PointConsumer {
+        private final StringBuilder json = new StringBuilder(256).append('[');
+        private int count;
+        private long firstTs = Long.MAX_VALUE;
+        private long lastTs = Long.MIN_VALUE;
+
+        @Override
+        public void accept(double latitude, double longitude, long timestamp) {
+            if (count > 0) {
+                json.append(',');
+            }
+            json.append('[').append(latitude).append(',').append(longitude).append(',').append(timestamp)
+                    .append(']');
+            count++;
+            if (timestamp < firstTs)
+                firstTs = timestamp;
+            if (timestamp > lastTs)
+                lastTs = timestamp;
+        }
 
-        } catch (Exception e) {
-            log.error("❌ Error parsing trajectory for driver {}", driverId, e);
-            return Mono.empty();
+        String toJson() {
+            return json.append(']').toString();
         }
     }
-}
\ No newline at end of file
+}
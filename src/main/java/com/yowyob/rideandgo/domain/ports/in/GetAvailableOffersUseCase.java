@@ -3,6 +3,23 @@ package com.yowyob.rideandgo.domain.ports.in;
 import com.yowyob.rideandgo.domain.model.Offer;
 import reactor.core.publisher.Flux;
 
+import java.util.UUID;
+
 public interface GetAvailableOffersUseCase {
     Flux<Offer> getAvailableOffers(); // Offers in PENDING state
-}
\ No newline at end of file
+
+    /**
+     * Flux temps réel pour le chauffeur connecté : d'abord les offres disponibles
+     * (comme getAvailableOffers), puis les offres créées dans sa zone et le retrait de
+     * celles déjà envoyées (prises ou annulées).
+     */
+    Flux<OfferFeedUpdate> streamAvailableOffers();
+
+    enum UpdateType {
+        AVAILABLE, CREATED, TAKEN, CANCELLED
+    }
+
+    // offer est nul pour TAKEN / CANCELLED
+    record OfferFeedUpdate(UpdateType type, UUID offerId, Offer offer) {
+    }
+}
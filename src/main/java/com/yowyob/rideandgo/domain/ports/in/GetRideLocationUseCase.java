@@ -1,6 +1,7 @@
 package com.yowyob.rideandgo.domain.ports.in;
 
 import com.yowyob.rideandgo.infrastructure.adapters.inbound.rest.dto.RideTrackingResponse;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.util.UUID;
@@ -10,4 +11,12 @@ public interface GetRideLocationUseCase {
      * Récupère la position, la distance et l'ETA du partenaire de course.
      */
     Mono<RideTrackingResponse> getPartnerLocation(UUID rideId, UUID requesterId);
+
+    /**
+     * Même information que getPartnerLocation, poussée à chaque changement de
+     * position (la course n'est lue qu'une fois, à l'ouverture du flux).
+     * Réservé aux courses en cours ; le flux se termine quand la course est terminée
+     * ou annulée.
+     */
+    Flux<RideTrackingResponse> streamPartnerLocation(UUID rideId, UUID requesterId);
 }
\ No newline at end of file
@@ -1,12 +1,18 @@
 package com.yowyob.rideandgo.domain.ports.in;
 
 import com.yowyob.rideandgo.domain.model.Offer;
+import com.yowyob.rideandgo.domain.ports.out.OfferRepositoryPort.OfferCursor;
+import com.yowyob.rideandgo.domain.ports.out.OfferRepositoryPort.OfferFilter;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import java.util.UUID;
 
 public interface OfferManagementUseCase {
-    Flux<Offer> getAllOffers();
+    /**
+     * Liste admin paginée par curseur ; les candidatures ne sont enrichies (profil,
+     * position, véhicule) que si {@code enrich} est vrai.
+     */
+    Flux<Offer> getOffers(OfferFilter filter, OfferCursor after, int limit, boolean enrich);
     Mono<Offer> getOfferById(UUID id);
     Mono<Offer> updateOffer(UUID id, Offer offerDetails);
     Mono<Boolean> deleteOffer(UUID id);
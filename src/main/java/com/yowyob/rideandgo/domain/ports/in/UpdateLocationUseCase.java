@@ -1,7 +1,11 @@
 package com.yowyob.rideandgo.domain.ports.in;
 
+import com.yowyob.rideandgo.domain.ports.out.LocationCachePort;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
+import java.util.UUID;
+
 /**
  * Input port for real-time location updates.
  */
@@ -13,4 +17,21 @@ public interface UpdateLocationUseCase {
      * @return Mono<Boolean> true if success
      */
     Mono<Boolean> updateCurrentLocation(Double latitude, Double longitude);
+
+    /**
+     * Stores a batch of client-timestamped fixes for the current authenticated actor.
+     * Fixes may arrive out of order (backfill after a connectivity gap).
+     * @param fixes List of fixes, timestamps in epoch seconds
+     * @return Mono<Integer> number of fixes stored
+     */
+    Mono<Integer> updateLocationBatch(List<LocationCachePort.LocationFix> fixes);
+
+    /**
+     * Stores a batch of fixes for an actor already authenticated by the caller
+     * (e.g. once per WebSocket session) instead of the reactive security context.
+     * @param actorId UUID of the authenticated actor
+     * @param fixes List of fixes, timestamps in epoch seconds
+     * @return Mono<Integer> number of fixes stored
+     */
+    Mono<Integer> ingestFixes(UUID actorId, List<LocationCachePort.LocationFix> fixes);
 }
\ No newline at end of file
@@ -0,0 +1,32 @@
+package com.yowyob.rideandgo.domain.ports.out;
+
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.UUID;
+
+/**
+ * Ensemble (cache) des chauffeurs pouvant recevoir une offre : en ligne et profil
+ * validé. Croisé avec l'index Geo côté Redis, il écarte les chauffeurs inéligibles
+ * avant tout accès à Postgres.
+ */
+public interface DriverEligibilityCachePort {
+    /**
+     * Met à jour l'ensemble et journalise le changement, pour qu'une reconstruction
+     * en cours ne l'écrase pas.
+     */
+    Mono<Void> setDriverEligible(UUID driverId, boolean eligible);
+
+    /**
+     * Début d'une reconstruction, à appeler avant de lire la base.
+     * @return le repère à passer à replaceEligibleDrivers.
+     */
+    Mono<Long> startRebuild();
+
+    /**
+     * Remplace tout l'ensemble (reconstruction depuis la base), de façon atomique pour
+     * les lecteurs. Les changements journalisés depuis le repère sont rejoués par-dessus
+     * avant la bascule.
+     */
+    Mono<Void> replaceEligibleDrivers(Collection<UUID> driverIds, long since);
+}
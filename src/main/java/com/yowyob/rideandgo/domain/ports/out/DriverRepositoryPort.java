@@ -3,6 +3,7 @@ package com.yowyob.rideandgo.domain.ports.out;
 import com.yowyob.rideandgo.domain.model.Driver;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import java.util.Collection;
 import java.util.UUID;
 
 public interface DriverRepositoryPort {
@@ -23,4 +24,29 @@ public interface DriverRepositoryPort {
     Mono<Driver> validateProfile(UUID driverId);
 
     Flux<Driver> findAllPendingValidation();
+
+    /**
+     * Parmi les candidats, les chauffeurs pouvant recevoir une offre (en ligne et
+     * profil validé), avec l'email de leur compte et leur note. Une seule requête pour toute la
+     * liste.
+     */
+    Flux<EligibleDriver> findEligibleDrivers(Collection<UUID> candidateIds);
+
+    /**
+     * Ids de tous les chauffeurs éligibles (reconstruction du cache d'éligibilité).
+     */
+    Flux<UUID> findAllEligibleDriverIds();
+
+    /**
+     * Profil (compte + fiche chauffeur) de plusieurs chauffeurs en une requête, pour
+     * l'affichage des candidatures. Les ids sans fiche chauffeur sont ignorés.
+     */
+    Flux<BidderProfile> findBidderProfiles(Collection<UUID> driverIds);
+
+    record EligibleDriver(UUID id, String email, Double rating, Integer totalReviewsCount) {
+    }
+
+    record BidderProfile(UUID id, String firstName, String lastName, String telephone, String photoUri,
+            UUID vehicleId) {
+    }
 }
@@ -2,6 +2,10 @@ package com.yowyob.rideandgo.domain.ports.out;
 
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 public interface LocationCachePort {
@@ -10,17 +14,56 @@ public interface LocationCachePort {
      */
     Mono<Boolean> saveLocation(UUID actorId, Double latitude, Double longitude);
 
+    /**
+     * Sauvegarde un lot de positions horodatées : un script pour le Live puis une
+     * commande par cellule géographique touchée, et un script pour l'historique.
+     * Les fixes doivent être triés par horodatage croissant : le dernier alimente le
+     * Live (uniquement s'il est plus récent que la position Live actuelle), tous
+     * sont ajoutés à l'historique.
+     */
+    Mono<Boolean> saveLocations(UUID actorId, List<LocationFix> fixes);
+
     /**
      * Récupère la dernière position connue (Live).
      */
     Mono<Location> getLocation(UUID actorId);
 
+    /**
+     * Dernières positions connues (Live) de plusieurs acteurs : un script pour leurs
+     * cellules, puis un GEOPOS par cellule. Les acteurs absents du Live ne figurent pas dans la map.
+     */
+    Mono<Map<UUID, Location>> getLocations(Collection<UUID> actorIds);
+
+    /**
+     * Abonnement aux nouvelles positions Live d'un acteur (pub/sub). Le Mono se
+     * termine une fois l'abonnement confirmé par Redis : une position lue ensuite avec
+     * getLocation() ne peut pas manquer de mise à jour. Ne réémet pas la position
+     * courante.
+     */
+    Mono<Flux<Location>> watchLocation(UUID actorId);
+
+    /**
+     * Retire du Live (au plus batchSize) les acteurs sans position reçue depuis
+     * lastSeenBefore.
+     * @return le nombre d'acteurs retirés.
+     */
+    Mono<Long> evictStaleLocations(Instant lastSeenBefore, int batchSize);
+
     /**
      * Trouve les chauffeurs dans un rayon donné.
      * C'est ici que la magie Redis Geo opérera.
      */
     Flux<GeoResult> findNearbyDrivers(Double latitude, Double longitude, Double radiusKm);
 
+    /**
+     * Comme findNearbyDrivers, mais ne renvoie que les chauffeurs éligibles (voir
+     * DriverEligibilityCachePort), triés par distance : une recherche par cellule
+     * couverte, puis un SMISMEMBER pour l'éligibilité. Les candidats lus avant ce
+     * filtre sont plafonnés à limit × 4 (par cellule).
+     * @param limit nombre max de résultats (0 = illimité).
+     */
+    Flux<GeoResult> findNearbyEligibleDrivers(Double latitude, Double longitude, Double radiusKm, int limit);
+
     Mono<Void> saveOfferLocation(UUID offerId, Double lat, Double lon);
 
     Mono<Void> removeOfferLocation(UUID offerId);
@@ -31,6 +74,10 @@ public interface LocationCachePort {
     record Location(Double latitude, Double longitude) {
     }
 
+    // Record pour un point GPS horodaté côté client (timestamp en secondes epoch)
+    record LocationFix(Double latitude, Double longitude, Long timestamp) {
+    }
+
     // Record pour le résultat de recherche (ID + Distance)
     record GeoResult(UUID driverId, Double distanceKm, Location location) {
     }
@@ -8,6 +8,12 @@ import java.util.UUID;
 public interface NotificationHistoryRepositoryPort {
     Mono<Void> save(Notification notification);
 
+    /**
+     * Insertion groupée (fan-out d'une offre) : une requête par lot au lieu d'une par
+     * notification.
+     */
+    Mono<Void> saveAll(List<Notification> notifications);
+
     Mono<PagedResult<Notification>> getUserNotifications(UUID userId, int page, int size);
 
     Mono<Void> markAsRead(UUID notificationId);
@@ -5,8 +5,29 @@ import reactor.core.publisher.Mono;
 
 import java.util.UUID;
 
+/**
+ * Cache des offres, invalidé par numéro de version : chaque écriture incrémente la
+ * version de l'offre, et une entrée n'est servie que si elle porte la version
+ * courante. Une lecture lente qui remettrait en cache une offre périmée après une
+ * écriture concurrente est donc ignorée.
+ */
 public interface OfferCachePort {
-    Mono<Boolean> saveInCache(Offer offer);
-
+    /**
+     * @return l'offre en cache, si son entrée est à la version courante.
+     */
     Mono<Offer> findOfferById(UUID offerId);
+
+    /**
+     * Version courante (0 si l'offre n'a jamais été invalidée). À lire AVANT de
+     * charger l'offre depuis la base.
+     */
+    Mono<Long> getOfferVersion(UUID offerId);
+
+    Mono<Boolean> saveInCache(Offer offer, long version);
+
+    /**
+     * Rend périmée toute entrée existante.
+     * @return la nouvelle version.
+     */
+    Mono<Long> invalidateOffer(UUID offerId);
 }
@@ -0,0 +1,30 @@
+package com.yowyob.rideandgo.domain.ports.out;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Échéancier des offres ouvertes : chaque offre PENDING / BID_RECEIVED a une date
+ * limite, au-delà de laquelle elle est annulée automatiquement.
+ */
+public interface OfferExpiryPort {
+    Mono<Void> scheduleExpiry(UUID offerId, Instant deadline);
+
+    Mono<Void> cancelExpiry(UUID offerId);
+
+    /**
+     * Retire de l'échéancier et renvoie (au plus batchSize) les offres dont la date
+     * limite est passée. Une offre n'est renvoyée qu'une fois.
+     */
+    Flux<UUID> popExpired(Instant now, int batchSize);
+
+    /**
+     * Donne la date limite par défaut aux offres indexées (Geo) qui n'en ont pas
+     * encore (offres créées avant l'échéancier).
+     * @return le nombre d'offres ajoutées.
+     */
+    Mono<Long> backfillOpenOffers(Instant deadline);
+}
@@ -0,0 +1,33 @@
+package com.yowyob.rideandgo.domain.ports.out;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.UUID;
+
+/**
+ * Diffusion (toutes instances) des changements d'état des offres, pour les flux
+ * temps réel des chauffeurs.
+ */
+public interface OfferFeedPort {
+    Mono<Void> publish(OfferFeedEvent event);
+
+    /**
+     * Événements publiés à partir de l'abonnement (pas de rejeu). Le Mono se termine
+     * une fois l'abonnement confirmé par Redis.
+     */
+    Mono<Flux<OfferFeedEvent>> events();
+
+    enum EventType {
+        /** Nouvelle offre ouverte */
+        CREATED,
+        /** Un chauffeur a été choisi : l'offre n'est plus disponible */
+        TAKEN,
+        /** Annulée ou expirée */
+        CANCELLED
+    }
+
+    // Position de départ, pour filtrer par zone sans relire l'offre
+    record OfferFeedEvent(EventType type, UUID offerId, Double latitude, Double longitude) {
+    }
+}
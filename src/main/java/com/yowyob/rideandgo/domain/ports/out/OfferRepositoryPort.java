@@ -1,8 +1,12 @@
 package com.yowyob.rideandgo.domain.ports.out;
 
 import com.yowyob.rideandgo.domain.model.Offer;
+import com.yowyob.rideandgo.domain.model.enums.OfferState;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Set;
 import java.util.UUID;
 
 public interface OfferRepositoryPort {
@@ -11,5 +15,66 @@ public interface OfferRepositoryPort {
     Mono<Boolean> exists(Offer offer);
     Mono<Offer> findById(UUID offerId);
     Flux<Offer> findAll(); 
-    Flux<Offer> findLatestPending(int limit);
+    default Flux<Offer> findLatestPending(int limit) {
+        return findLatestPending(limit, null);
+    }
+
+    /**
+     * Offres ouvertes (PENDING / BID_RECEIVED), de la plus récente à la plus ancienne.
+     * @param after curseur de la dernière offre de la page précédente (null : début).
+     */
+    Flux<Offer> findLatestPending(int limit, OfferCursor after);
+
+    /**
+     * Charge plusieurs offres (et leurs candidatures) en requêtes groupées, dans
+     * l'ordre des ids fournis ; les ids inconnus sont ignorés.
+     */
+    Flux<Offer> findAllByIds(Collection<UUID> offerIds);
+
+    /**
+     * Passe à CANCELLED, en une seule requête conditionnelle, celles des offres
+     * encore ouvertes (PENDING / BID_RECEIVED) ; les autres ne sont pas touchées.
+     * @return les offres effectivement annulées.
+     */
+    Flux<Offer> cancelOpenOffers(Collection<UUID> offerIds);
+
+    /**
+     * Page de la liste complète (admin), de la plus récente à la plus ancienne,
+     * restreinte par les critères non nuls du filtre.
+     * @param after curseur de la dernière offre de la page précédente (null : début).
+     */
+    Flux<Offer> findPage(OfferFilter filter, OfferCursor after, int limit);
+
+    // Critères de la liste admin : un champ null (ou un ensemble vide) ne filtre pas
+    record OfferFilter(Set<OfferState> states, LocalDateTime createdFrom, LocalDateTime createdTo,
+            UUID passengerId) {
+
+        public static OfferFilter none() {
+            return new OfferFilter(null, null, null, null);
+        }
+    }
+
+    // Position dans la liste triée (created_at DESC, id DESC)
+    record OfferCursor(LocalDateTime createdAt, UUID id) {
+
+        /**
+         * Forme texte pour les API : "createdAt_id".
+         */
+        public String token() {
+            return createdAt + "_" + id;
+        }
+
+        public static OfferCursor parse(String token) {
+            int separator = token.lastIndexOf('_');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Curseur invalide : " + token);
+            }
+            try {
+                return new OfferCursor(LocalDateTime.parse(token.substring(0, separator)),
+                        UUID.fromString(token.substring(separator + 1)));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Curseur invalide : " + token);
+            }
+        }
+    }
 }
\ No newline at end of file
@@ -1,7 +1,9 @@
 package com.yowyob.rideandgo.domain.ports.out;
 
 import com.yowyob.rideandgo.domain.model.Wallet;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import java.util.Collection;
 import java.util.UUID;
 
 public interface PaymentPort {
@@ -9,5 +11,11 @@ public interface PaymentPort {
 
     Mono<Wallet> getWalletByOwnerId(UUID ownerId);
 
+    /**
+     * Portefeuilles de plusieurs propriétaires. Un propriétaire sans portefeuille
+     * (ou en erreur) est simplement absent du résultat.
+     */
+    Flux<Wallet> getWalletsByOwnerIds(Collection<UUID> ownerIds);
+
     Mono<Void> processPayment(UUID walletId, double amount);
 }
\ No newline at end of file
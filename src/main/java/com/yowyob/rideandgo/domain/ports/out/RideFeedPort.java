@@ -0,0 +1,22 @@
+package com.yowyob.rideandgo.domain.ports.out;
+
+import com.yowyob.rideandgo.domain.model.enums.RideState;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.UUID;
+
+/**
+ * Diffusion (toutes instances) des changements d'état des courses, pour clore les
+ * flux de suivi en direct.
+ */
+public interface RideFeedPort {
+    Mono<Void> publishState(UUID rideId, RideState state);
+
+    /**
+     * Abonnement aux changements d'état d'une course (pas de rejeu). Le Mono se
+     * termine une fois l'abonnement confirmé : un état lu ensuite en base ne peut
+     * pas manquer de changement.
+     */
+    Mono<Flux<RideState>> watchState(UUID rideId);
+}
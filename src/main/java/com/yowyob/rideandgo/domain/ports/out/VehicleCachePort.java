@@ -0,0 +1,38 @@
+package com.yowyob.rideandgo.domain.ports.out;
+
+import com.yowyob.rideandgo.domain.model.Vehicle;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.UUID;
+
+public interface VehicleCachePort {
+    /**
+     * Enregistre le véhicule, horodaté à maintenant (base du calcul de fraîcheur).
+     */
+    Mono<Boolean> saveInCache(Vehicle vehicle);
+
+    /**
+     * Entrée en cache, fraîche ou non : c'est à l'appelant de décider s'il la
+     * revalide. Vide si absente (ou illisible).
+     */
+    Mono<CachedVehicle> findVehicleById(UUID vehicleId);
+
+    Mono<Void> evictVehicle(UUID vehicleId);
+
+    /**
+     * Signale à toutes les instances que le véhicule a changé (leur copie locale est
+     * retirée).
+     */
+    Mono<Void> publishVehicleChanged(UUID vehicleId);
+
+    /**
+     * Véhicules signalés comme modifiés, par n'importe quelle instance (pub/sub, pas
+     * de rejeu).
+     */
+    Flux<UUID> changedVehicles();
+
+    // Véhicule et date de sa lecture auprès du service distant (epoch ms)
+    record CachedVehicle(Vehicle vehicle, long cachedAtMillis) {
+    }
+}
@@ -0,0 +1,37 @@
+package com.yowyob.rideandgo.domain.ports.out;
+
+import com.yowyob.rideandgo.domain.model.Wallet;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.UUID;
+
+public interface WalletCachePort {
+    Mono<Boolean> saveInCache(Wallet wallet);
+
+    Mono<Wallet> findWalletByOwnerId(UUID ownerId);
+
+    /**
+     * Lecture groupée : seuls les portefeuilles présents en cache sont émis.
+     */
+    Flux<Wallet> findWalletsByOwnerIds(Collection<UUID> ownerIds);
+
+    /**
+     * Retrouve le propriétaire d'un portefeuille (un paiement ne connaît que l'id du
+     * portefeuille).
+     */
+    Mono<UUID> findOwnerIdByWalletId(UUID walletId);
+
+    /**
+     * Retire l'entrée et signale l'éviction à toutes les instances (voir
+     * evictedWallets).
+     */
+    Mono<Void> evictWallet(UUID ownerId);
+
+    /**
+     * Propriétaires dont le portefeuille a été évincé, par n'importe quelle instance
+     * (pub/sub, pas de rejeu).
+     */
+    Flux<UUID> evictedWallets();
+}
@@ -1,12 +1,16 @@
 package com.yowyob.rideandgo.infrastructure.adapters.inbound.rest;
 
 import com.yowyob.rideandgo.domain.ports.in.UpdateLocationUseCase;
+import com.yowyob.rideandgo.domain.ports.out.LocationCachePort;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
+import java.util.Objects;
+
 @RestController
 @RequestMapping("/api/v1/location")
 @RequiredArgsConstructor
@@ -21,5 +25,16 @@ public class LocationController {
         return updateLocationUseCase.updateCurrentLocation(request.latitude(), request.longitude());
     }
 
+    @PostMapping("/batch")
+    @Operation(summary = "Upload a batch of fixes", description = "Stores client-timestamped fixes (epoch seconds) in a single Redis round-trip. The most recent fix updates the live position, every fix is appended to the history. Late fixes (connectivity gap) are only backfilled into the history. Returns the number of fixes stored.")
+    public Mono<Integer> updateLocations(@RequestBody List<LocationFixRequest> fixes) {
+        return updateLocationUseCase.updateLocationBatch(fixes.stream()
+                .filter(Objects::nonNull)
+                .map(f -> new LocationCachePort.LocationFix(f.latitude(), f.longitude(), f.timestamp()))
+                .toList());
+    }
+
     public record LocationRequest(Double latitude, Double longitude) {}
+
+    public record LocationFixRequest(Double latitude, Double longitude, Long timestamp) {}
 }
\ No newline at end of file
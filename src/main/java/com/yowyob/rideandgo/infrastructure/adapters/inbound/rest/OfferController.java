@@ -1,6 +1,9 @@
 package com.yowyob.rideandgo.infrastructure.adapters.inbound.rest;
 
+import com.yowyob.rideandgo.domain.model.enums.OfferState;
 import com.yowyob.rideandgo.domain.ports.in.*;
+import com.yowyob.rideandgo.domain.ports.out.OfferRepositoryPort.OfferCursor;
+import com.yowyob.rideandgo.domain.ports.out.OfferRepositoryPort.OfferFilter;
 import com.yowyob.rideandgo.infrastructure.adapters.inbound.rest.dto.CreateOfferRequest;
 import com.yowyob.rideandgo.infrastructure.adapters.inbound.rest.dto.LandingOfferResponse;
 import com.yowyob.rideandgo.infrastructure.adapters.inbound.rest.dto.OfferResponse;
@@ -13,6 +16,9 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.context.ReactiveSecurityContextHolder;
 import org.springframework.security.core.context.SecurityContext;
@@ -21,6 +27,10 @@ import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import com.yowyob.rideandgo.infrastructure.adapters.inbound.rest.dto.UpdateOfferRequest;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 @RestController
@@ -29,6 +39,8 @@ import java.util.UUID;
 @Tag(name = "Offer-Controller", description = "Matchmaking workflow")
 public class OfferController {
 
+    private static final Duration SSE_HEARTBEAT = Duration.ofSeconds(15);
+
     private final CreateOfferUseCase createOfferUseCase;
     private final GetAvailableOffersUseCase getAvailableOffersUseCase;
     private final ResponseToOfferUseCase responseToOfferUseCase;
@@ -39,9 +51,10 @@ public class OfferController {
     private final RideMapper rideMapper;
 
     @GetMapping("/landing")
-    @Operation(summary = "Get latest anonymized offers for landing page")
-    public Flux<LandingOfferResponse> getPublicOffers(@RequestParam(defaultValue = "10") int limit) {
-        return offerService.getLatestPublicOffers(limit);
+    @Operation(summary = "Get latest anonymized offers for landing page", description = "Pass the cursor of the last item to get the next page.")
+    public Flux<LandingOfferResponse> getPublicOffers(@RequestParam(defaultValue = "10") int limit,
+            @RequestParam(required = false) String cursor) {
+        return offerService.getLatestPublicOffers(limit, cursor);
     }
 
     @PostMapping
@@ -70,6 +83,29 @@ public class OfferController {
         return getAvailableOffersUseCase.getAvailableOffers().map(mapper::toResponse);
     }
 
+    @GetMapping(value = "/available/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Live feed of nearby offers (Driver, SSE)", description = "Sends the available offers, then pushes offer-created, offer-taken and offer-cancelled events for the driver's area. Token may be passed as access_token query parameter.")
+    @PreAuthorize("hasAuthority('RIDE_AND_GO_DRIVER')")
+    public Flux<ServerSentEvent<Object>> streamAvailable() {
+        Flux<ServerSentEvent<Object>> updates = getAvailableOffersUseCase.streamAvailableOffers()
+                .map(update -> switch (update.type()) {
+                    case AVAILABLE -> ServerSentEvent.<Object>builder(mapper.toResponse(update.offer()))
+                            .event("offer-available").build();
+                    case CREATED -> ServerSentEvent.<Object>builder(mapper.toResponse(update.offer()))
+                            .event("offer-created").build();
+                    case TAKEN -> ServerSentEvent.<Object>builder(Map.of("offerId", update.offerId()))
+                            .event("offer-taken").build();
+                    case CANCELLED -> ServerSentEvent.<Object>builder(Map.of("offerId", update.offerId()))
+                            .event("offer-cancelled").build();
+                });
+
+        // Commentaire périodique : garde la connexion ouverte à travers les proxys
+        Flux<ServerSentEvent<Object>> heartbeat = Flux.interval(SSE_HEARTBEAT)
+                .map(tick -> ServerSentEvent.builder().comment("keepalive").build());
+
+        return Flux.merge(updates, heartbeat);
+    }
+
     @PostMapping("/{id}/apply")
     @Operation(summary = "Apply to an offer (Driver)")
     @PreAuthorize("hasAuthority('RIDE_AND_GO_DRIVER')")
@@ -122,11 +158,22 @@ public class OfferController {
 
     // --- ENDPOINTS DE GESTION / DEBUG ---
 
-    @GetMapping
-    @Operation(summary = "Get all offers (Admin/Debug)", description = "Retrieves all offers regardless of status")
+    @GetMapping(produces = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE })
+    @Operation(summary = "List offers (Admin)", description = "Newest first, filtered by state, creation date range [from, to) and passenger. "
+            + "Pass the cursor of the last item to get the next page. Bids are only enriched with enrich=true. "
+            + "Accept: application/x-ndjson streams the page item by item.")
     @PreAuthorize("hasAuthority('RIDE_AND_GO_ADMIN')")
-    public Flux<OfferResponse> getAllOffers() {
-        return offerService.getAllOffers().map(mapper::toResponse);
+    public Flux<OfferResponse> getAllOffers(
+            @RequestParam(required = false) Set<OfferState> state,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) UUID passengerId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit,
+            @RequestParam(defaultValue = "false") boolean enrich) {
+        OfferCursor after = cursor != null && !cursor.isBlank() ? OfferCursor.parse(cursor) : null;
+        return offerService.getOffers(new OfferFilter(state, from, to, passengerId), after, limit, enrich)
+                .map(mapper::toResponse);
     }
 
     @GetMapping("/{id}")
@@ -13,12 +13,16 @@ import com.yowyob.rideandgo.domain.model.DriverTrajectory;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.context.ReactiveSecurityContextHolder;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import java.time.Duration;
 import java.util.UUID;
 
 @RestController
@@ -31,6 +35,8 @@ public class TripController {
     private final RideMapper rideMapper;
     private final TrajectoryService trajectoryService;
 
+    private static final Duration SSE_HEARTBEAT = Duration.ofSeconds(15);
+
     @GetMapping("/history")
     @Operation(summary = "Get my ride history")
     public Flux<RideResponse> getMyHistory(
@@ -98,6 +104,28 @@ public class TripController {
                 .flatMap(auth -> getRideLocationUseCase.getPartnerLocation(id, UUID.fromString(auth.getName())));
     }
 
+    @GetMapping(value = "/{id}/location/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Live tracking stream (SSE)", description = "Pushes the partner position, distance and ETA on every location change. Token may be passed as access_token query parameter.")
+    public Flux<ServerSentEvent<RideTrackingResponse>> streamTrackingInfo(@PathVariable UUID id) {
+        return ReactiveSecurityContextHolder.getContext()
+                .map(SecurityContext::getAuthentication)
+                .flatMapMany(auth -> {
+                    // Fin du suivi (course terminée) : le heartbeat s'arrête aussi
+                    Sinks.Empty<Void> ended = Sinks.empty();
+                    Flux<ServerSentEvent<RideTrackingResponse>> updates = getRideLocationUseCase
+                            .streamPartnerLocation(id, UUID.fromString(auth.getName()))
+                            .map(tracking -> ServerSentEvent.builder(tracking).event("location").build())
+                            .doFinally(signal -> ended.tryEmitEmpty());
+
+                    // Commentaire périodique : garde la connexion ouverte à travers les proxys
+                    Flux<ServerSentEvent<RideTrackingResponse>> heartbeat = Flux.interval(SSE_HEARTBEAT)
+                            .map(tick -> ServerSentEvent.<RideTrackingResponse>builder().comment("keepalive").build())
+                            .takeUntilOther(ended.asMono());
+
+                    return Flux.merge(updates, heartbeat);
+                });
+    }
+
     @GetMapping("/trajectories/me")
     @Operation(summary = "Get my movement history (Segments)", description = "Returns all 10-min trajectory segments for the connected driver.")
     @PreAuthorize("hasAuthority('RIDE_AND_GO_DRIVER')")
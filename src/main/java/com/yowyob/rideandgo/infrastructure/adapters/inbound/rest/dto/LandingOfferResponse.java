@@ -11,5 +11,6 @@ public record LandingOfferResponse(
     Double endLon, // ✅
     double price,
     String departureTime,
-    LocalDateTime createdAt
+    LocalDateTime createdAt,
+    String cursor // À renvoyer (dernier élément) pour obtenir la page suivante
 ) {}
\ No newline at end of file
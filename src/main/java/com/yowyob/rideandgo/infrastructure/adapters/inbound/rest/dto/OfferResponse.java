@@ -21,5 +21,6 @@ public record OfferResponse(
         String passengerPhone,
         String departureTime,
         OfferState state,
-        List<Bid> bids 
+        List<Bid> bids,
+        String cursor // À renvoyer (dernier élément) pour obtenir la page suivante
 ) {}
@@ -0,0 +1,90 @@
+package com.yowyob.rideandgo.infrastructure.adapters.inbound.websocket;
+
+import com.yowyob.rideandgo.domain.ports.in.UpdateLocationUseCase;
+import com.yowyob.rideandgo.domain.ports.out.LocationCachePort;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.socket.CloseStatus;
+import org.springframework.web.reactive.socket.WebSocketHandler;
+import org.springframework.web.reactive.socket.WebSocketMessage;
+import org.springframework.web.reactive.socket.WebSocketSession;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.security.Principal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Canal WebSocket persistant pour le flux GPS des applications mobiles.
+ * <p>
+ * L'authentification (JWT) est faite une seule fois, au handshake, par la chaîne
+ * Spring Security. Chaque frame texte contient un ou plusieurs fixes séparés par
+ * ';' au format compact "lat,lon[,timestamp]" (timestamp en secondes epoch).
+ * Le serveur répond à chaque frame par "ok:n" (n = fixes stockés).
+ * <p>
+ * Backpressure : les frames sont traitées une par une (concatMap), la lecture du
+ * socket n'est donc sollicitée qu'au rythme des écritures Redis.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LocationWebSocketHandler implements WebSocketHandler {
+
+    private final UpdateLocationUseCase updateLocationUseCase;
+
+    @Override
+    public Mono<Void> handle(WebSocketSession session) {
+        return session.getHandshakeInfo().getPrincipal()
+                .map(Principal::getName)
+                .flatMap(name -> {
+                    try {
+                        return Mono.just(UUID.fromString(name));
+                    } catch (IllegalArgumentException e) {
+                        log.error("WebSocket principal is not a valid UUID: {}", name);
+                        return Mono.empty();
+                    }
+                })
+                .flatMap(actorId -> {
+                    log.info("🛰️ Location stream opened for {} (session {})", actorId, session.getId());
+
+                    Flux<WebSocketMessage> acks = session.receive()
+                            .map(WebSocketMessage::getPayloadAsText)
+                            .concatMap(frame -> updateLocationUseCase.ingestFixes(actorId, parseFrame(frame))
+                                    .onErrorResume(e -> {
+                                        log.warn("⚠️ Rejected location frame from {}: {}", actorId, e.getMessage());
+                                        return Mono.just(0);
+                                    }), 1)
+                            .map(stored -> session.textMessage("ok:" + stored));
+
+                    return session.send(acks)
+                            .doFinally(signal -> log.info("🛰️ Location stream closed for {} ({})", actorId, signal));
+                })
+                .switchIfEmpty(Mono.defer(() -> session.close(CloseStatus.POLICY_VIOLATION)));
+    }
+
+    /**
+     * Parse une frame "lat,lon[,ts];lat,lon[,ts];..." en fixes.
+     * Les entrées mal formées sont ignorées.
+     */
+    private List<LocationCachePort.LocationFix> parseFrame(String frame) {
+        List<LocationCachePort.LocationFix> fixes = new ArrayList<>();
+        for (String entry : frame.split(";")) {
+            String[] parts = entry.trim().split(",");
+            if (parts.length < 2) {
+                continue;
+            }
+            try {
+                double lat = Double.parseDouble(parts[0]);
+                double lon = Double.parseDouble(parts[1]);
+                Long ts = parts.length > 2 ? Long.parseLong(parts[2].trim()) : null;
+                fixes.add(new LocationCachePort.LocationFix(lat, lon, ts));
+            } catch (NumberFormatException e) {
+                log.debug("Malformed location entry ignored: {}", entry);
+            }
+        }
+        return fixes;
+    }
+}
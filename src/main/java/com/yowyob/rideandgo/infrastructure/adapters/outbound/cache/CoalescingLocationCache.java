@@ -0,0 +1,182 @@
+package com.yowyob.rideandgo.infrastructure.adapters.outbound.cache;
+
+import com.yowyob.rideandgo.domain.ports.out.LocationCachePort;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Étage de coalescence devant {@link RedisAdapter} pour les écritures GPS.
+ * <p>
+ * Un client qui envoie plusieurs fixes en rafale ne provoque plus un GEOADD par
+ * fix : seule la dernière position de chaque acteur est gardée en mémoire
+ * (last-write-wins sur le timestamp client) et écrite en masse à chaque tick.
+ * L'historique, lui, est ajouté immédiatement pour ne perdre aucun point.
+ * <p>
+ * Désactivable via application.location.coalescing.enabled=false (retour à une
+ * écriture directe par {@link RedisAdapter}).
+ */
+@Slf4j
+@Primary
+@Component
+@ConditionalOnProperty(name = "application.location.coalescing.enabled", havingValue = "true", matchIfMissing = true)
+public class CoalescingLocationCache implements LocationCachePort {
+
+    private final RedisAdapter redisAdapter;
+
+    // Dernier fix Live non encore écrit, par acteur
+    private final Map<UUID, LocationFix> pendingLive = new ConcurrentHashMap<>();
+    private final AtomicBoolean flushing = new AtomicBoolean(false);
+
+    private final Counter fixesReceived;
+    private final Counter liveWrites;
+    private final Counter historyWrites;
+
+    public CoalescingLocationCache(RedisAdapter redisAdapter, MeterRegistry meterRegistry) {
+        this.redisAdapter = redisAdapter;
+        this.fixesReceived = Counter.builder("rideandgo.location.fixes.received")
+                .description("Fixes GPS reçus par le cache de position")
+                .register(meterRegistry);
+        this.liveWrites = Counter.builder("rideandgo.location.redis.writes")
+                .description("Commandes d'écriture Redis émises pour les positions")
+                .tag("target", "live")
+                .register(meterRegistry);
+        this.historyWrites = Counter.builder("rideandgo.location.redis.writes")
+                .description("Commandes d'écriture Redis émises pour les positions")
+                .tag("target", "history")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Mono<Boolean> saveLocation(UUID actorId, Double latitude, Double longitude) {
+        return saveLocations(actorId,
+                List.of(new LocationFix(latitude, longitude, Instant.now().getEpochSecond())));
+    }
+
+    @Override
+    public Mono<Boolean> saveLocations(UUID actorId, List<LocationFix> fixes) {
+        if (fixes == null || fixes.isEmpty()) {
+            return Mono.just(true);
+        }
+        fixesReceived.increment(fixes.size());
+
+        // Last-write-wins : un fix en retard ne remplace pas un fix plus récent en
+        // attente
+        LocationFix latest = fixes.get(fixes.size() - 1);
+        pendingLive.merge(actorId, latest,
+                (current, candidate) -> candidate.timestamp() >= current.timestamp() ? candidate : current);
+
+        historyWrites.increment();
+        return redisAdapter.appendTrajectory(actorId, fixes);
+    }
+
+    @Override
+    public Mono<Location> getLocation(UUID actorId) {
+        // Une position en attente de flush est plus récente que celle de Redis
+        LocationFix pending = pendingLive.get(actorId);
+        if (pending != null) {
+            return Mono.just(new Location(pending.latitude(), pending.longitude()));
+        }
+        return redisAdapter.getLocation(actorId);
+    }
+
+    @Override
+    public Mono<Map<UUID, Location>> getLocations(Collection<UUID> actorIds) {
+        return redisAdapter.getLocations(actorIds)
+                .map(stored -> {
+                    Map<UUID, Location> locations = new HashMap<>(stored);
+                    for (UUID actorId : actorIds) {
+                        LocationFix pending = pendingLive.get(actorId);
+                        if (pending != null) {
+                            locations.put(actorId, new Location(pending.latitude(), pending.longitude()));
+                        }
+                    }
+                    return locations;
+                });
+    }
+
+    @Override
+    public Mono<Flux<Location>> watchLocation(UUID actorId) {
+        return redisAdapter.watchLocation(actorId);
+    }
+
+    @Override
+    public Mono<Long> evictStaleLocations(Instant lastSeenBefore, int batchSize) {
+        return redisAdapter.evictStaleLocations(lastSeenBefore, batchSize);
+    }
+
+    @Override
+    public Flux<GeoResult> findNearbyDrivers(Double latitude, Double longitude, Double radiusKm) {
+        return redisAdapter.findNearbyDrivers(latitude, longitude, radiusKm);
+    }
+
+    @Override
+    public Flux<GeoResult> findNearbyEligibleDrivers(Double latitude, Double longitude, Double radiusKm,
+            int limit) {
+        return redisAdapter.findNearbyEligibleDrivers(latitude, longitude, radiusKm, limit);
+    }
+
+    @Override
+    public Mono<Void> saveOfferLocation(UUID offerId, Double lat, Double lon) {
+        return redisAdapter.saveOfferLocation(offerId, lat, lon);
+    }
+
+    @Override
+    public Mono<Void> removeOfferLocation(UUID offerId) {
+        return redisAdapter.removeOfferLocation(offerId);
+    }
+
+    @Override
+    public Flux<UUID> findNearbyOfferIds(Double lat, Double lon, Double radiusKm) {
+        return redisAdapter.findNearbyOfferIds(lat, lon, radiusKm);
+    }
+
+    /**
+     * Écrit toutes les positions Live accumulées depuis le dernier tick : un script,
+     * puis une commande par cellule touchée.
+     */
+    @Scheduled(fixedDelayString = "${application.location.coalescing.flush-interval-ms:200}")
+    public void flushLivePositions() {
+        if (pendingLive.isEmpty() || !flushing.compareAndSet(false, true)) {
+            return;
+        }
+
+        // remove() par clé : un fix arrivé pendant le flush recrée simplement l'entrée
+        Map<UUID, LocationFix> batch = new HashMap<>();
+        for (UUID actorId : pendingLive.keySet()) {
+            LocationFix fix = pendingLive.remove(actorId);
+            if (fix != null) {
+                batch.put(actorId, fix);
+            }
+        }
+
+        redisAdapter.saveLivePositions(batch)
+                .doFinally(signal -> flushing.set(false))
+                .subscribe(
+                        write -> {
+                            liveWrites.increment(write.commands());
+                            log.debug("📍 Flushed {} live positions ({} written, {} commands)", batch.size(),
+                                    write.written(), write.commands());
+                        },
+                        e -> {
+                            log.error("❌ Live position flush failed, {} positions requeued", batch.size(), e);
+                            // Réinjecte sans écraser un fix plus récent arrivé entre-temps
+                            batch.forEach(pendingLive::putIfAbsent);
+                        });
+    }
+}
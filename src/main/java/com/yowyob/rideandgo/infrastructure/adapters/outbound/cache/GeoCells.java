@@ -0,0 +1,96 @@
+package com.yowyob.rideandgo.infrastructure.adapters.outbound.cache;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Découpage de la carte en cellules geohash pour partitionner les index Geo Redis.
+ * <p>
+ * Une précision de 4 caractères donne des cellules d'environ 39 x 20 km : une
+ * recherche à 20 km ne touche alors que quelques clés, quelle que soit la taille
+ * de la flotte.
+ */
+public final class GeoCells {
+
+    private static final String BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz";
+    private static final double KM_PER_DEGREE_LAT = 111.32;
+
+    private GeoCells() {
+    }
+
+    /**
+     * Geohash de la position, tronqué à la précision demandée.
+     */
+    public static String cellOf(double latitude, double longitude, int precision) {
+        double minLat = -90, maxLat = 90;
+        double minLon = -180, maxLon = 180;
+        StringBuilder hash = new StringBuilder(precision);
+        boolean evenBit = true; // Le geohash commence par la longitude
+        int bit = 0;
+        int ch = 0;
+
+        while (hash.length() < precision) {
+            if (evenBit) {
+                double mid = (minLon + maxLon) / 2;
+                if (longitude >= mid) {
+                    ch = (ch << 1) | 1;
+                    minLon = mid;
+                } else {
+                    ch <<= 1;
+                    maxLon = mid;
+                }
+            } else {
+                double mid = (minLat + maxLat) / 2;
+                if (latitude >= mid) {
+                    ch = (ch << 1) | 1;
+                    minLat = mid;
+                } else {
+                    ch <<= 1;
+                    maxLat = mid;
+                }
+            }
+            evenBit = !evenBit;
+
+            if (++bit == 5) {
+                hash.append(BASE32.charAt(ch));
+                bit = 0;
+                ch = 0;
+            }
+        }
+        return hash.toString();
+    }
+
+    /**
+     * Toutes les cellules qui intersectent le rectangle englobant le cercle de
+     * recherche.
+     */
+    public static Set<String> cellsCovering(double latitude, double longitude, double radiusKm, int precision) {
+        int lonBits = (5 * precision + 1) / 2;
+        int latBits = (5 * precision) / 2;
+        double cellHeight = 180.0 / (1L << latBits);
+        double cellWidth = 360.0 / (1L << lonBits);
+
+        double dLat = radiusKm / KM_PER_DEGREE_LAT;
+        double cosLat = Math.max(Math.cos(Math.toRadians(latitude)), 0.01);
+        double dLon = radiusKm / (KM_PER_DEGREE_LAT * cosLat);
+
+        double minLat = Math.max(latitude - dLat, -90);
+        double maxLat = Math.min(latitude + dLat, 90);
+        double minLon = Math.max(longitude - dLon, -180);
+        double maxLon = Math.min(longitude + dLon, 180);
+
+        // Échantillonnage au pas d'une cellule, bornes incluses : chaque ligne et chaque
+        // colonne de cellules du rectangle est touchée au moins une fois
+        Set<String> cells = new LinkedHashSet<>();
+        for (double lat = minLat;; lat = Math.min(lat + cellHeight, maxLat)) {
+            for (double lon = minLon;; lon = Math.min(lon + cellWidth, maxLon)) {
+                cells.add(cellOf(lat, lon, precision));
+                if (lon >= maxLon)
+                    break;
+            }
+            if (lat >= maxLat)
+                break;
+        }
+        return cells;
+    }
+}
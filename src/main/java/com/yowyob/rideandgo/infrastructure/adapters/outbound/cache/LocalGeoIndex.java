@@ -0,0 +1,321 @@
+package com.yowyob.rideandgo.infrastructure.adapters.outbound.cache;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Index spatial en mémoire : grille uniforme sur des tableaux primitifs.
+ * <p>
+ * Chaque membre occupe un "slot" (lat, lon, UUID en deux longs). Chaque cellule de
+ * la grille est une liste de slots ; une recherche ne parcourt que les cellules qui
+ * recoupent le cercle, sans allocation par candidat ni boxing. Le tri final se fait
+ * sur des long (distance en float + slot) avec {@link Arrays#sort(long[])}.
+ * <p>
+ * Écritures sous verrou exclusif, lectures sous verrou partagé.
+ */
+public final class LocalGeoIndex {
+
+    private static final double KM_PER_DEGREE = 111.32;
+    private static final double EARTH_RADIUS_KM = 6371.0;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final double cellDeg;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // --- Slots ---
+    private double[] lats = new double[INITIAL_CAPACITY];
+    private double[] lons = new double[INITIAL_CAPACITY];
+    private long[] idHi = new long[INITIAL_CAPACITY];
+    private long[] idLo = new long[INITIAL_CAPACITY];
+    private int[] cellOfSlot = new int[INITIAL_CAPACITY];
+    private int[] posInCell = new int[INITIAL_CAPACITY];
+    private int highWater;
+    private int[] freeSlots = new int[64];
+    private int freeCount;
+
+    // Chemin d'écriture uniquement
+    private final Map<UUID, Integer> slotById = new HashMap<>();
+
+    // --- Cellules ---
+    private final CellTable cellTable = new CellTable();
+    private int[][] cellMembers = new int[256][];
+    private int[] cellSizes = new int[256];
+    private int cellCount;
+
+    public LocalGeoIndex(double cellSizeKm) {
+        this.cellDeg = cellSizeKm / KM_PER_DEGREE;
+    }
+
+    public record Hit(UUID id, double distanceKm, double latitude, double longitude) {
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return slotById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Insère ou déplace un membre.
+     */
+    public void upsert(UUID id, double latitude, double longitude) {
+        lock.writeLock().lock();
+        try {
+            Integer existing = slotById.get(id);
+            int cell = cellFor(latitude, longitude);
+            int slot;
+            if (existing != null) {
+                slot = existing;
+                if (cellOfSlot[slot] != cell) {
+                    detach(slot);
+                    attach(slot, cell);
+                }
+            } else {
+                slot = allocateSlot();
+                idHi[slot] = id.getMostSignificantBits();
+                idLo[slot] = id.getLeastSignificantBits();
+                attach(slot, cell);
+                slotById.put(id, slot);
+            }
+            lats[slot] = latitude;
+            lons[slot] = longitude;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Insère un membre seulement s'il est absent (chargement initial : une mise à
+     * jour reçue entre-temps est plus récente que l'instantané).
+     */
+    public void insertIfAbsent(UUID id, double latitude, double longitude) {
+        lock.writeLock().lock();
+        try {
+            if (!slotById.containsKey(id)) {
+                upsert(id, latitude, longitude);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(UUID id) {
+        lock.writeLock().lock();
+        try {
+            Integer slot = slotById.remove(id);
+            if (slot != null) {
+                detach(slot);
+                if (freeCount == freeSlots.length) {
+                    freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+                }
+                freeSlots[freeCount++] = slot;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Membres dans le cercle, triés par distance croissante.
+     *
+     * @param limit nombre max de résultats (0 = illimité)
+     */
+    public List<Hit> radius(double latitude, double longitude, double radiusKm, int limit) {
+        lock.readLock().lock();
+        try {
+            double dLat = radiusKm / KM_PER_DEGREE;
+            double dLon = radiusKm / (KM_PER_DEGREE * Math.max(Math.cos(Math.toRadians(latitude)), 0.01));
+            int minY = gridY(latitude - dLat);
+            int maxY = gridY(latitude + dLat);
+            int minX = gridX(longitude - dLon);
+            int maxX = gridX(longitude + dLon);
+
+            long[] candidates = new long[16];
+            int found = 0;
+            for (int y = minY; y <= maxY; y++) {
+                for (int x = minX; x <= maxX; x++) {
+                    int cell = cellTable.get(cellKey(x, y));
+                    if (cell < 0) {
+                        continue;
+                    }
+                    int[] members = cellMembers[cell];
+                    for (int i = 0, n = cellSizes[cell]; i < n; i++) {
+                        int slot = members[i];
+                        double d = haversineKm(latitude, longitude, lats[slot], lons[slot]);
+                        if (d <= radiusKm) {
+                            if (found == candidates.length) {
+                                candidates = Arrays.copyOf(candidates, found * 2);
+                            }
+                            // Distance positive : l'ordre des bits du float suit l'ordre des valeurs
+                            candidates[found++] = ((long) Float.floatToIntBits((float) d) << 32) | slot;
+                        }
+                    }
+                }
+            }
+
+            Arrays.sort(candidates, 0, found);
+            int count = limit > 0 ? Math.min(limit, found) : found;
+            List<Hit> hits = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                int slot = (int) candidates[i];
+                hits.add(new Hit(new UUID(idHi[slot], idLo[slot]),
+                        Float.intBitsToFloat((int) (candidates[i] >>> 32)), lats[slot], lons[slot]));
+            }
+            return hits;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // --- Gestion interne (sous verrou exclusif) ---
+
+    private int allocateSlot() {
+        if (freeCount > 0) {
+            return freeSlots[--freeCount];
+        }
+        if (highWater == lats.length) {
+            int capacity = lats.length * 2;
+            lats = Arrays.copyOf(lats, capacity);
+            lons = Arrays.copyOf(lons, capacity);
+            idHi = Arrays.copyOf(idHi, capacity);
+            idLo = Arrays.copyOf(idLo, capacity);
+            cellOfSlot = Arrays.copyOf(cellOfSlot, capacity);
+            posInCell = Arrays.copyOf(posInCell, capacity);
+        }
+        return highWater++;
+    }
+
+    private void attach(int slot, int cell) {
+        int[] members = cellMembers[cell];
+        int n = cellSizes[cell];
+        if (n == members.length) {
+            members = Arrays.copyOf(members, n * 2);
+            cellMembers[cell] = members;
+        }
+        members[n] = slot;
+        cellSizes[cell] = n + 1;
+        cellOfSlot[slot] = cell;
+        posInCell[slot] = n;
+    }
+
+    // Retrait en O(1) : le dernier membre de la cellule prend la place du slot retiré
+    private void detach(int slot) {
+        int cell = cellOfSlot[slot];
+        int[] members = cellMembers[cell];
+        int last = --cellSizes[cell];
+        int pos = posInCell[slot];
+        int moved = members[last];
+        members[pos] = moved;
+        posInCell[moved] = pos;
+    }
+
+    private int cellFor(double latitude, double longitude) {
+        long key = cellKey(gridX(longitude), gridY(latitude));
+        int cell = cellTable.get(key);
+        if (cell >= 0) {
+            return cell;
+        }
+        if (cellCount == cellMembers.length) {
+            cellMembers = Arrays.copyOf(cellMembers, cellCount * 2);
+            cellSizes = Arrays.copyOf(cellSizes, cellCount * 2);
+        }
+        cell = cellCount++;
+        cellMembers[cell] = new int[8];
+        cellTable.put(key, cell);
+        return cell;
+    }
+
+    private int gridX(double longitude) {
+        return (int) Math.floor((longitude + 180.0) / cellDeg);
+    }
+
+    private int gridY(double latitude) {
+        return (int) Math.floor((latitude + 90.0) / cellDeg);
+    }
+
+    private static long cellKey(int x, int y) {
+        return ((long) y << 32) | (x & 0xFFFFFFFFL);
+    }
+
+    private static double haversineKm(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_KM * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+    }
+
+    /**
+     * Table de hachage long -> int à adressage ouvert (clé de cellule -> numéro de
+     * cellule). Les cellules ne sont jamais supprimées : leur nombre est borné par la
+     * zone couverte.
+     */
+    private static final class CellTable {
+        private static final long EMPTY = Long.MIN_VALUE;
+
+        private long[] keys = new long[512];
+        private int[] values = new int[512];
+        private int size;
+
+        CellTable() {
+            Arrays.fill(keys, EMPTY);
+        }
+
+        int get(long key) {
+            int mask = keys.length - 1;
+            for (int i = mix(key) & mask;; i = (i + 1) & mask) {
+                long k = keys[i];
+                if (k == key) {
+                    return values[i];
+                }
+                if (k == EMPTY) {
+                    return -1;
+                }
+            }
+        }
+
+        void put(long key, int value) {
+            if ((size + 1) * 2 > keys.length) {
+                rehash();
+            }
+            int mask = keys.length - 1;
+            int i = mix(key) & mask;
+            while (keys[i] != EMPTY && keys[i] != key) {
+                i = (i + 1) & mask;
+            }
+            if (keys[i] == EMPTY) {
+                size++;
+            }
+            keys[i] = key;
+            values[i] = value;
+        }
+
+        private void rehash() {
+            long[] oldKeys = keys;
+            int[] oldValues = values;
+            keys = new long[oldKeys.length * 2];
+            values = new int[oldValues.length * 2];
+            Arrays.fill(keys, EMPTY);
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != EMPTY) {
+                    put(oldKeys[i], oldValues[i]);
+                }
+            }
+        }
+
+        private static int mix(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+}
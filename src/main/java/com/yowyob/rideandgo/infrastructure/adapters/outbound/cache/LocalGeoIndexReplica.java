@@ -0,0 +1,229 @@
+package com.yowyob.rideandgo.infrastructure.adapters.outbound.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.ReactiveRedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import jakarta.annotation.PreDestroy;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Réplique locale (par instance) des index Geo Redis, pour répondre aux recherches
+ * de proximité sans aller-retour réseau.
+ * <p>
+ * Les scripts d'écriture de {@link RedisAdapter} publient chaque mouvement sur
+ * {@link RedisAdapter#GEO_UPDATES_CHANNEL} : toutes les instances appliquent donc
+ * les mêmes mises à jour. Au démarrage puis périodiquement, l'index est reconstruit
+ * depuis Redis (le pub/sub ne garantit pas la livraison) ; les messages reçus
+ * pendant la reconstruction sont rejoués avant la bascule.
+ * <p>
+ * Tant que la réplique n'est pas prête, ou si l'abonnement tombe, {@link RedisAdapter}
+ * interroge Redis comme avant.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "application.geo.local-index.enabled", havingValue = "true")
+public class LocalGeoIndexReplica {
+
+    private final ReactiveRedisTemplate<String, Object> redisTemplate;
+    private final ReactiveRedisMessageListenerContainer listenerContainer;
+    private final double cellSizeKm;
+
+    private final Object lock = new Object();
+    private final AtomicBoolean rebuilding = new AtomicBoolean(false);
+
+    private volatile LocalGeoIndex drivers;
+    private volatile LocalGeoIndex offers;
+    private volatile boolean ready;
+
+    // Non nul pendant une reconstruction : messages à rejouer sur le nouvel index
+    private List<String> replayBuffer;
+
+    private Disposable subscription;
+
+    public LocalGeoIndexReplica(ReactiveRedisTemplate<String, Object> redisTemplate,
+            ReactiveRedisMessageListenerContainer listenerContainer,
+            @Value("${application.geo.local-index.cell-size-km:2.0}") double cellSizeKm) {
+        this.redisTemplate = redisTemplate;
+        this.listenerContainer = listenerContainer;
+        this.cellSizeKm = cellSizeKm;
+        this.drivers = new LocalGeoIndex(cellSizeKm);
+        this.offers = new LocalGeoIndex(cellSizeKm);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public List<LocalGeoIndex.Hit> nearbyDrivers(double latitude, double longitude, double radiusKm) {
+        return nearbyDrivers(latitude, longitude, radiusKm, 0);
+    }
+
+    /**
+     * @param limit nombre max de drivers, les plus proches (0 = illimité)
+     */
+    public List<LocalGeoIndex.Hit> nearbyDrivers(double latitude, double longitude, double radiusKm, int limit) {
+        return drivers.radius(latitude, longitude, radiusKm, limit);
+    }
+
+    public List<LocalGeoIndex.Hit> nearbyOffers(double latitude, double longitude, double radiusKm) {
+        return offers.radius(latitude, longitude, radiusKm, 0);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        rebuild();
+    }
+
+    // receiveLater : le Mono se termine une fois le SUBSCRIBE confirmé par Redis
+    private Mono<Void> subscribe() {
+        var serialization = RedisSerializationContext.SerializationPair.fromSerializer(StringRedisSerializer.UTF_8);
+        return listenerContainer
+                .receiveLater(List.of(ChannelTopic.of(RedisAdapter.GEO_UPDATES_CHANNEL)), serialization, serialization)
+                .doOnNext(messages -> subscription = messages.subscribe(
+                        message -> apply(message.getMessage()),
+                        e -> {
+                            ready = false;
+                            log.error("❌ Geo updates subscription lost, local geo index disabled until resync", e);
+                            subscription = null;
+                        }))
+                .then();
+    }
+
+    /**
+     * Reconstruction complète depuis Redis, pour rattraper les messages pub/sub
+     * perdus (déconnexion, redémarrage de Redis).
+     */
+    @Scheduled(fixedDelayString = "${application.geo.local-index.resync-interval-ms:300000}",
+            initialDelayString = "${application.geo.local-index.resync-interval-ms:300000}")
+    public void rebuild() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            return;
+        }
+        synchronized (lock) {
+            replayBuffer = new ArrayList<>();
+        }
+        LocalGeoIndex freshDrivers = new LocalGeoIndex(cellSizeKm);
+        LocalGeoIndex freshOffers = new LocalGeoIndex(cellSizeKm);
+
+        // Abonnement confirmé d'abord, chargement ensuite : aucun mouvement ne passe
+        // entre les deux
+        (subscription == null ? subscribe() : Mono.<Void>empty())
+                .then(Mono.when(
+                        load(RedisAdapter.KEY_GEO_LIVE_CELLS, RedisAdapter.PREFIX_GEO_LIVE_CELL, freshDrivers),
+                        load(RedisAdapter.KEY_OFFERS_GEO_CELLS, RedisAdapter.PREFIX_OFFERS_GEO_CELL, freshOffers)))
+                .doFinally(signal -> rebuilding.set(false))
+                .subscribe(
+                        null,
+                        e -> {
+                            synchronized (lock) {
+                                replayBuffer = null;
+                            }
+                            log.error("❌ Local geo index rebuild failed, keeping previous state", e);
+                        },
+                        () -> {
+                            synchronized (lock) {
+                                replayBuffer.forEach(message -> applyTo(message, freshDrivers, freshOffers));
+                                replayBuffer = null;
+                                drivers = freshDrivers;
+                                offers = freshOffers;
+                            }
+                            ready = subscription != null;
+                            log.info("🗺️ Local geo index rebuilt: {} drivers, {} offers", freshDrivers.size(),
+                                    freshOffers.size());
+                        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (subscription != null) {
+            subscription.dispose();
+        }
+    }
+
+    // Parcourt l'index membre -> cellule (HSCAN) puis lit les positions par cellule
+    // (GEOPOS) : seuls les membres indexés sont chargés, pas les fantômes des cellules
+    private Mono<Void> load(String cellIndexKey, String cellPrefix, LocalGeoIndex target) {
+        return redisTemplate.execute(connection -> connection.hashCommands()
+                        .hScan(StandardCharsets.UTF_8.encode(cellIndexKey), ScanOptions.scanOptions().count(500).build()))
+                .buffer(500)
+                .concatMap(entries -> {
+                    // Membre sérialisé en JSON dans l'index, cellule en texte brut
+                    Map<String, List<String>> membersByCell = new HashMap<>();
+                    for (Map.Entry<ByteBuffer, ByteBuffer> entry : entries) {
+                        String member = StandardCharsets.UTF_8.decode(entry.getKey()).toString().replace("\"", "");
+                        String cell = StandardCharsets.UTF_8.decode(entry.getValue()).toString();
+                        membersByCell.computeIfAbsent(cell, c -> new ArrayList<>()).add(member);
+                    }
+                    return Flux.fromIterable(membersByCell.entrySet())
+                            .flatMap(cell -> positions(cellPrefix + cell.getKey(), cell.getValue(), target), 4);
+                })
+                .then();
+    }
+
+    private Mono<Void> positions(String cellKey, List<String> members, LocalGeoIndex target) {
+        return redisTemplate.opsForGeo()
+                .position(cellKey, members.toArray())
+                .doOnNext(points -> {
+                    for (int i = 0; i < members.size(); i++) {
+                        if (points.get(i) != null) {
+                            try {
+                                // Point.y = Lat, Point.x = Lon
+                                target.insertIfAbsent(UUID.fromString(members.get(i)),
+                                        points.get(i).getY(), points.get(i).getX());
+                            } catch (IllegalArgumentException e) {
+                                log.debug("Invalid geo member ignored: {}", members.get(i));
+                            }
+                        }
+                    }
+                })
+                .then();
+    }
+
+    private void apply(String payload) {
+        synchronized (lock) {
+            applyTo(payload, drivers, offers);
+            if (replayBuffer != null) {
+                replayBuffer.add(payload);
+            }
+        }
+    }
+
+    private void applyTo(String payload, LocalGeoIndex driverIndex, LocalGeoIndex offerIndex) {
+        for (String line : payload.split("\n")) {
+            String[] parts = line.split(" ");
+            try {
+                UUID id = UUID.fromString(parts[1]);
+                switch (parts[0]) {
+                    case "D" -> driverIndex.upsert(id, Double.parseDouble(parts[2]), Double.parseDouble(parts[3]));
+                    case "d" -> driverIndex.remove(id);
+                    case "O" -> offerIndex.upsert(id, Double.parseDouble(parts[2]), Double.parseDouble(parts[3]));
+                    case "o" -> offerIndex.remove(id);
+                    default -> log.debug("Unknown geo update ignored: {}", line);
+                }
+            } catch (RuntimeException e) {
+                log.debug("Malformed geo update ignored: {}", line);
+            }
+        }
+    }
+}
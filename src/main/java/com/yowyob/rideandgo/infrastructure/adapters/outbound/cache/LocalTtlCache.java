@@ -0,0 +1,59 @@
+package com.yowyob.rideandgo.infrastructure.adapters.outbound.cache;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Petit cache local (niveau 1, devant Redis) : LRU borné en taille, avec
+ * expiration par entrée.
+ * <p>
+ * Volontairement simple (verrou unique) : il ne garde que des lectures très
+ * chaudes pendant quelques secondes.
+ */
+public final class LocalTtlCache<K, V> {
+
+    private final long ttlNanos;
+    private final Map<K, Entry<V>> entries;
+
+    private record Entry<V>(V value, long expiresAt) {
+    }
+
+    public LocalTtlCache(int maxSize, Duration ttl) {
+        this.ttlNanos = ttl.toNanos();
+        // accessOrder = true : l'entrée la moins récemment lue sort en premier
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * @return la valeur, ou null si absente ou expirée.
+     */
+    public synchronized V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (System.nanoTime() - entry.expiresAt() > 0) {
+            entries.remove(key);
+            return null;
+        }
+        return entry.value();
+    }
+
+    public synchronized void put(K key, V value) {
+        entries.put(key, new Entry<>(value, System.nanoTime() + ttlNanos));
+    }
+
+    public synchronized void remove(K key) {
+        entries.remove(key);
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+}
@@ -1,92 +1,646 @@
 package com.yowyob.rideandgo.infrastructure.adapters.outbound.cache;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.yowyob.rideandgo.domain.model.Fare;
 import com.yowyob.rideandgo.domain.model.Offer;
 import com.yowyob.rideandgo.domain.model.User;
+import com.yowyob.rideandgo.domain.model.Vehicle;
+import com.yowyob.rideandgo.domain.model.Wallet;
+import com.yowyob.rideandgo.domain.model.enums.RideState;
 import com.yowyob.rideandgo.domain.ports.out.*;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 import org.springframework.data.geo.Distance;
 import org.springframework.data.geo.Point;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
 import org.springframework.stereotype.Component;
 import org.springframework.data.geo.Circle;
 import org.springframework.data.geo.Distance;
 import org.springframework.data.geo.Metrics;
 import org.springframework.data.geo.Point;
 import org.springframework.data.redis.connection.RedisGeoCommands;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.ReactiveRedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.GenericToStringSerializer;
+import org.springframework.data.redis.serializer.RedisElementReader;
+import org.springframework.data.redis.serializer.RedisElementWriter;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
 
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class RedisAdapter
-        implements OfferCachePort, UserCachePort, FareCachePort, LocationCachePort, CacheInvalidationPort {
+        implements OfferCachePort, UserCachePort, FareCachePort, LocationCachePort, CacheInvalidationPort,
+        WalletCachePort, DriverEligibilityCachePort, OfferFeedPort, OfferExpiryPort, VehicleCachePort,
+        RideFeedPort {
 
     private final ReactiveRedisTemplate<String, Object> redisTemplate;
 
-    // CLÉ 1 : Le "Live" (Geo Set unique pour tous les drivers)
-    // Contient : {Membre: "uuid", Score: GeoHash}
-    private static final String KEY_GEO_LIVE = "drivers:geo:live";
+    // Réplique Geo locale optionnelle (application.geo.local-index.enabled)
+    private final ObjectProvider<LocalGeoIndexReplica> localGeoIndex;
 
-    // CLÉ 2 : Le "Buffer" (Préfixe pour les listes d'historique)
-    // Contient : Liste de strings "lat,lon,timestamp"
-    private static final String PREFIX_HISTORY = "history:driver:";
+    private final ReactiveRedisMessageListenerContainer listenerContainer;
 
-    private static final String KEY_OFFERS_GEO = "offers:geo:pending";
+    // Les records (final) sont stockés en texte JSON : le sérialiseur du template les
+    // écrirait sans info de type et ne saurait pas les relire
+    private final ObjectMapper objectMapper;
+
+    // CLÉ 1 : Le "Live", partitionné par cellule geohash (un Geo Set par cellule)
+    // Contient : {Membre: "uuid", Score: GeoHash}. Une recherche n'interroge que les
+    // cellules qui recoupent le cercle, la taille de la flotte n'influe plus.
+    // Chaque cellule est une clé indépendante (répartie sur tout le cluster).
+    static final String PREFIX_GEO_LIVE_CELL = "drivers:geo:live:cell:";
+
+    // Les clés de contrôle du Live partagent le hash tag {drivers:geo:live} : même slot
+    // Redis Cluster, donc utilisables ensemble dans un script.
+
+    // Index membre -> cellule courante, pour déplacer un driver d'une cellule à
+    // l'autre et retrouver sa position sans balayer toutes les cellules. Fait foi :
+    // un membre trouvé dans une autre cellule que celle de l'index est un fantôme.
+    static final String KEY_GEO_LIVE_CELLS = "{drivers:geo:live}:cells";
+
+    // CLÉ 2 : Le "Buffer" (Préfixe pour les buffers d'historique)
+    // Contient : blocs binaires compacts (voir TrajectoryCodec), ajoutés par APPEND
+    private static final String PREFIX_TRAJECTORY = "trajectory:driver:";
+
+    // CLÉ 3 : Horodatage (client) de la position Live de chaque driver
+    // Permet d'ignorer dans le Live les fixes en retard (backfill après coupure)
+    private static final String KEY_LIVE_TIMESTAMPS = "{drivers:geo:live}:ts";
+
+    // CLÉ 4 : Dernier signe de vie (horloge serveur, secondes epoch) de chaque driver
+    // Contient : {Membre: "uuid", Score: ts}. Sert au balayage des drivers inactifs.
+    private static final String KEY_LIVE_LAST_SEEN = "{drivers:geo:live}:lastseen";
+
+    // CLÉ 5 : Drivers pouvant recevoir une offre (en ligne + profil validé)
+    // Tenue à jour par DriverR2dbcAdapter, reconstruite périodiquement depuis Postgres
+    private static final String KEY_ELIGIBLE_DRIVERS = "drivers:eligible";
+
+    // Journal des changements d'éligibilité (ZSET, membre = "1:id" ou "0:id", score =
+    // heure Redis en ms) et ensembles en reconstruction. Le hash tag {drivers:eligible}
+    // les place dans le même slot que KEY_ELIGIBLE_DRIVERS.
+    private static final String KEY_ELIGIBLE_CHANGES = "{drivers:eligible}:changes";
+    private static final String PREFIX_ELIGIBLE_REBUILD = "{drivers:eligible}:rebuild:";
+    private static final Duration ELIGIBLE_CHANGES_RETENTION = Duration.ofHours(1);
+    // Candidats lus par recherche éligible : limit × facteur, marge pour les drivers
+    // écartés par l'éligibilité
+    private static final int ELIGIBLE_CANDIDATE_FACTOR = 4;
+
+    // Offres en attente, partitionnées de la même façon (hash tag {offers:geo:pending})
+    static final String PREFIX_OFFERS_GEO_CELL = "offers:geo:pending:cell:";
+    static final String KEY_OFFERS_GEO_CELLS = "{offers:geo:pending}:cells";
+
+    // Anciennes clés (un seul Geo Set pour tout le monde) : reprises dans les cellules
+    // au démarrage, puis supprimées
+    private static final String LEGACY_KEY_GEO_LIVE = "drivers:geo:live";
+    private static final String LEGACY_KEY_OFFERS_GEO = "offers:geo:pending";
+    private static final int LEGACY_MIGRATION_BATCH = 500;
+
+    // Canal pub/sub des mouvements Geo, publié par les scripts d'écriture.
+    // Messages (une ligne par membre) : "D id lat lon" / "d id" pour le Live,
+    // "O id lat lon" / "o id" pour les offres. Sans abonné, PUBLISH ne coûte rien.
+    public static final String GEO_UPDATES_CHANNEL = "geo:updates";
+
+    // Canal par acteur ("lat lon"), pour suivre une seule position sans filtrer tout
+    // le flux Geo (suivi de course en direct)
+    private static final String PREFIX_ACTOR_LOCATION_CHANNEL = "location:actor:";
+
+    // Offres en cache (texte JSON versionné) et leur numéro de version
+    private static final String PREFIX_OFFER = "offer:";
+    private static final String PREFIX_OFFER_VERSION = "offer:ver:";
+    private static final Duration OFFER_VERSION_TTL = Duration.ofDays(1);
+
+    // Véhicules du service distant (texte JSON horodaté)
+    private static final String PREFIX_VEHICLE = "vehicle:";
+
+    // Échéancier des offres ouvertes (ZSET, score = date limite en secondes epoch).
+    // Même slot que l'index des offres, pour le backfill.
+    private static final String KEY_OFFERS_EXPIRY = "{offers:geo:pending}:expiry";
+
+    // Canal des changements d'état des offres : "TYPE id lat lon"
+    private static final String OFFER_FEED_CHANNEL = "offers:feed";
+
+    // Évictions de portefeuille (id du propriétaire), pour les caches locaux de
+    // toutes les instances
+    private static final String WALLET_EVICTIONS_CHANNEL = "cache:evict:wallet";
+
+    // Véhicules modifiés (id), pour les caches locaux de toutes les instances
+    private static final String VEHICLE_CHANGES_CHANNEL = "cache:evict:vehicle";
+
+    // Canal par course : nouvel état ("ONGOING", "COMPLETED"...)
+    private static final String PREFIX_RIDE_STATE_CHANNEL = "ride:state:";
+
+    // Sécurité : TTL sur la liste d'historique (1h).
+    // Si le Cron plante, ces données seront perdues après 1h mais la RAM sera
+    // libérée.
+    private static final Duration HISTORY_TTL = Duration.ofHours(1);
+
+    // Cellule "aucune" dans les réponses des scripts ('-' n'existe pas en geohash)
+    private static final String NO_CELL = "-";
+
+    // Note : les scripts ne touchent que des clés déclarées dans KEYS, toutes dans un
+    // même slot (index, horodatages, signes de vie). Ils renvoient les cellules
+    // concernées ; le GEOADD / ZREM sur chaque cellule est ensuite envoyé par
+    // l'application, une commande par clé. L'index est écrit en premier : une lecture
+    // qui tombe entre les deux écarte le membre trouvé dans une autre cellule.
+
+    // KEYS[1] = index des cellules, KEYS[2] = horodatages Live, KEYS[3] = derniers
+    // signes de vie
+    // ARGV[1] = heure serveur (s), puis (membre, lon, lat, ts, cellule) répété pour
+    // chaque driver
+    // Un fix plus ancien que le Live est ignoré (backfill). Retourne une ligne
+    // "rang cellulePrécédente" par position Live écrite (rang à partir de 1,
+    // cellule "-" si le driver n'était pas dans le Live).
+    private static final RedisScript<String> LIVE_UPDATE_SCRIPT = RedisScript.of("""
+            local lines = {}
+            local moves = {}
+            local rank = 0
+            for i = 2, #ARGV, 5 do
+                rank = rank + 1
+                local member, cell = ARGV[i], ARGV[i + 4]
+                redis.call('ZADD', KEYS[3], ARGV[1], member)
+                local last = tonumber(redis.call('HGET', KEYS[2], member) or '-1')
+                if tonumber(ARGV[i + 3]) >= last then
+                    local previous = redis.call('HGET', KEYS[1], member) or '%3$s'
+                    redis.call('HSET', KEYS[1], member, cell)
+                    redis.call('HSET', KEYS[2], member, ARGV[i + 3])
+                    lines[#lines + 1] = rank .. ' ' .. previous
+                    local id = string.gsub(member, '"', '')
+                    moves[#moves + 1] = 'D ' .. id .. ' ' .. ARGV[i + 2] .. ' ' .. ARGV[i + 1]
+                    redis.call('PUBLISH', '%2$s' .. id, ARGV[i + 2] .. ' ' .. ARGV[i + 1])
+                end
+            end
+            if #moves > 0 then
+                redis.call('PUBLISH', '%1$s', table.concat(moves, '\\n'))
+            end
+            return table.concat(lines, '\\n')
+            """.formatted(GEO_UPDATES_CHANNEL, PREFIX_ACTOR_LOCATION_CHANNEL, NO_CELL), String.class);
+
+    // KEYS[1] = derniers signes de vie, KEYS[2] = index des cellules, KEYS[3] =
+    // horodatages Live
+    // ARGV[1] = seuil (s), ARGV[2] = taille max du lot
+    // Retire du contrôle du Live les drivers sans signe de vie depuis le seuil.
+    // Retourne "id cellule" par driver retiré (cellule "-" s'il n'était pas indexé).
+    private static final RedisScript<String> EVICT_STALE_SCRIPT = RedisScript.of("""
+            local stale = redis.call('ZRANGEBYSCORE', KEYS[1], '-inf', ARGV[1], 'LIMIT', 0, ARGV[2])
+            local lines = {}
+            local removed = {}
+            for _, member in ipairs(stale) do
+                local cell = redis.call('HGET', KEYS[2], member) or '%2$s'
+                redis.call('HDEL', KEYS[2], member)
+                redis.call('HDEL', KEYS[3], member)
+                redis.call('ZREM', KEYS[1], member)
+                local id = string.gsub(member, '"', '')
+                lines[#lines + 1] = id .. ' ' .. cell
+                removed[#removed + 1] = 'd ' .. id
+            end
+            if #removed > 0 then
+                redis.call('PUBLISH', '%1$s', table.concat(removed, '\\n'))
+            end
+            return table.concat(lines, '\\n')
+            """.formatted(GEO_UPDATES_CHANNEL, NO_CELL), String.class);
+
+    // KEYS[1] = index des cellules
+    // ARGV[1] = membre, ARGV[2] = lon, ARGV[3] = lat, ARGV[4] = cellule courante,
+    // ARGV[5] = type de message ("D" ou "O")
+    // Retourne la cellule précédente ("-" si aucune).
+    private static final RedisScript<String> SAVE_MEMBER_SCRIPT = RedisScript.of("""
+            local previous = redis.call('HGET', KEYS[1], ARGV[1]) or '%2$s'
+            redis.call('HSET', KEYS[1], ARGV[1], ARGV[4])
+            redis.call('PUBLISH', '%1$s', ARGV[5] .. ' ' .. string.gsub(ARGV[1], '"', '') .. ' ' .. ARGV[3] .. ' ' .. ARGV[2])
+            return previous
+            """.formatted(GEO_UPDATES_CHANNEL, NO_CELL), String.class);
+
+    // KEYS[1] = index des cellules, KEYS[2] et KEYS[3] (Live seulement) = horodatages
+    // Live et derniers signes de vie
+    // ARGV[1] = membre, ARGV[2] = type de message ("d" ou "o")
+    // Retourne la cellule du membre retiré, ou une chaîne vide s'il n'était pas indexé.
+    private static final RedisScript<String> REMOVE_MEMBER_SCRIPT = RedisScript.of("""
+            if KEYS[2] then
+                redis.call('HDEL', KEYS[2], ARGV[1])
+                redis.call('ZREM', KEYS[3], ARGV[1])
+            end
+            local cell = redis.call('HGET', KEYS[1], ARGV[1])
+            if not cell then
+                return ''
+            end
+            redis.call('HDEL', KEYS[1], ARGV[1])
+            redis.call('PUBLISH', '%1$s', ARGV[2] .. ' ' .. string.gsub(ARGV[1], '"', ''))
+            return cell
+            """.formatted(GEO_UPDATES_CHANNEL), String.class);
+
+    // KEYS[1] = index des cellules, ARGV = membres
+    // Lignes "rang cellule" pour les membres indexés (rang à partir de 1).
+    private static final RedisScript<String> GET_CELLS_SCRIPT = RedisScript.of("""
+            local lines = {}
+            for i, cell in ipairs(redis.call('HMGET', KEYS[1], unpack(ARGV))) do
+                if cell then
+                    lines[#lines + 1] = i .. ' ' .. cell
+                end
+            end
+            return table.concat(lines, '\\n')
+            """, String.class);
+
+    // KEYS[1] = échéancier, ARGV[1] = maintenant (s), ARGV[2] = taille du lot
+    // Lit et retire les échéances passées en une fois : deux instances ne traitent
+    // jamais la même offre. Retourne les ids séparés par des espaces.
+    private static final RedisScript<String> POP_EXPIRED_SCRIPT = RedisScript.of("""
+            local ids = redis.call('ZRANGEBYSCORE', KEYS[1], '-inf', ARGV[1], 'LIMIT', 0, ARGV[2])
+            if #ids == 0 then
+                return ''
+            end
+            redis.call('ZREM', KEYS[1], unpack(ids))
+            for i, id in ipairs(ids) do
+                ids[i] = string.gsub(id, '"', '')
+            end
+            return table.concat(ids, ' ')
+            """, String.class);
+
+    // KEYS[1] = échéancier, KEYS[2] = index des cellules des offres (même slot),
+    // ARGV[1] = date limite
+    // ZADD NX : une échéance déjà posée n'est jamais repoussée
+    private static final RedisScript<Long> BACKFILL_EXPIRY_SCRIPT = RedisScript.of("""
+            local added = 0
+            for _, member in ipairs(redis.call('HKEYS', KEYS[2])) do
+                added = added + redis.call('ZADD', KEYS[1], 'NX', ARGV[1], member)
+            end
+            return added
+            """, Long.class);
+
+    // KEYS[1] = drivers éligibles, KEYS[2] = journal des changements
+    // ARGV[1] = membre, ARGV[2] = "1" (éligible) ou "0", ARGV[3] = rétention du journal (ms)
+    private static final RedisScript<Long> SET_ELIGIBLE_SCRIPT = RedisScript.of("""
+            if ARGV[2] == '1' then
+                redis.call('SADD', KEYS[1], ARGV[1])
+            else
+                redis.call('SREM', KEYS[1], ARGV[1])
+            end
+            local t = redis.call('TIME')
+            local now = tonumber(t[1]) * 1000 + math.floor(tonumber(t[2]) / 1000)
+            redis.call('ZREM', KEYS[2], (ARGV[2] == '1' and '0:' or '1:') .. ARGV[1])
+            redis.call('ZADD', KEYS[2], now, ARGV[2] .. ':' .. ARGV[1])
+            redis.call('ZREMRANGEBYSCORE', KEYS[2], '-inf', now - tonumber(ARGV[3]))
+            return 1
+            """, Long.class);
+
+    // KEYS[1] = ensemble reconstruit, KEYS[2] = drivers éligibles, KEYS[3] = journal
+    // ARGV[1] = repère (ms) pris avant la lecture de la base
+    // Rejoue les changements journalisés depuis le repère, puis bascule. Atomique :
+    // aucun changement ne passe entre le rejeu et le RENAME.
+    private static final RedisScript<Long> FINISH_ELIGIBLE_REBUILD_SCRIPT = RedisScript.of("""
+            for _, entry in ipairs(redis.call('ZRANGEBYSCORE', KEYS[3], ARGV[1], '+inf')) do
+                local member = string.sub(entry, 3)
+                if string.sub(entry, 1, 1) == '1' then
+                    redis.call('SADD', KEYS[1], member)
+                else
+                    redis.call('SREM', KEYS[1], member)
+                end
+            end
+            if redis.call('EXISTS', KEYS[1]) == 1 then
+                redis.call('RENAME', KEYS[1], KEYS[2])
+            else
+                redis.call('DEL', KEYS[2])
+            end
+            return redis.call('SCARD', KEYS[2])
+            """, Long.class);
+
+    // KEYS[1] = buffer du driver, ARGV[1] = TTL historique (s), ARGV[2] = bloc binaire
+    private static final RedisScript<Long> APPEND_TRAJECTORY_SCRIPT = RedisScript.of("""
+            local len = redis.call('APPEND', KEYS[1], ARGV[2])
+            redis.call('EXPIRE', KEYS[1], ARGV[1])
+            return len
+            """, Long.class);
+
+    private static final RedisElementWriter<ByteBuffer> RAW_ARGS_WRITER = RedisSerializationContext.SerializationPair
+            .byteBuffer().getWriter();
+    private static final RedisElementReader<Long> LONG_RESULT_READER = RedisElementReader
+            .from(new GenericToStringSerializer<>(Long.class));
+    private static final RedisElementReader<String> STRING_RESULT_READER = RedisElementReader
+            .from(StringRedisSerializer.UTF_8);
+
+    // Solde lu par le matching : TTL court, le cache est aussi invalidé à chaque paiement
+    @Value("${application.payment.cache.ttl-seconds:30}")
+    private long walletTtlSeconds;
+
+    @Value("${application.offer.cache.ttl-seconds:900}")
+    private long offerTtlSeconds;
+
+    // Durée de vie maximale : au-delà de la fraîcheur, l'entrée est servie puis revalidée
+    @Value("${application.vehicle.cache.ttl-seconds:86400}")
+    private long vehicleTtlSeconds;
+
+    // Précision geohash des cellules (4 = ~39 x 20 km)
+    @Value("${application.geo.cell-precision:4}")
+    private int cellPrecision;
 
     // --- LocationCachePort Implementation ---
 
     @Override
     public Mono<Boolean> saveLocation(UUID actorId, Double latitude, Double longitude) {
-        String driverIdStr = actorId.toString();
-        // Redis utilise (Longitude, Latitude) pour ses Points
-        Point point = new Point(longitude, latitude);
-
-        // 1. Mise à jour du Live (GEOADD)
-        // Ajoute ou met à jour la position du membre dans le Set géospatial
-        Mono<Long> geoAdd = redisTemplate.opsForGeo()
-                .add(KEY_GEO_LIVE, point, driverIdStr);
-
-        // 2. Ajout à l'historique (RPUSH)
-        // Format compact pour économiser la RAM : "lat,lon,timestamp"
-        String historyEntry = String.format("%f,%f,%d", latitude, longitude, Instant.now().getEpochSecond());
-        String historyKey = PREFIX_HISTORY + driverIdStr;
-
-        Mono<Long> listPush = redisTemplate.opsForList()
-                .rightPush(historyKey, historyEntry);
-
-        // 3. Sécurité : TTL sur la liste d'historique (1h).
-        // Si le Cron plante, ces données seront perdues après 1h mais la RAM sera
-        // libérée.
-        Mono<Boolean> setTtl = redisTemplate.expire(historyKey, Duration.ofHours(1));
-
-        // Exécution parallèle (Pipelining)
-        return Mono.zip(geoAdd, listPush, setTtl)
-                .map(tuple -> true)
+        // Un fix unique est un lot de taille 1, horodaté côté serveur
+        return saveLocations(actorId,
+                List.of(new LocationFix(latitude, longitude, Instant.now().getEpochSecond())));
+    }
+
+    @Override
+    public Mono<Boolean> saveLocations(UUID actorId, List<LocationFix> fixes) {
+        if (fixes == null || fixes.isEmpty()) {
+            return Mono.just(true);
+        }
+
+        LocationFix latest = fixes.get(fixes.size() - 1);
+
+        // Live (clés {drivers:geo:live} + cellule) et historique (clé du buffer) en
+        // parallèle : ce sont des slots différents
+        return saveLivePositions(Map.of(actorId, latest))
+                .doOnNext(write -> {
+                    if (write.written() == 0) {
+                        log.debug("⏪ Backfill only for {} ({} fixes older than live position)", actorId,
+                                fixes.size());
+                    }
+                })
+                .zipWith(appendTrajectory(actorId, fixes), (write, appended) -> appended)
                 .doOnError(e -> log.error("❌ Failed to update location for {}", actorId, e))
                 .onErrorReturn(false);
     }
 
+    /**
+     * Ajoute des fixes à l'historique uniquement, sans toucher au Live.
+     * Utilisé par {@link CoalescingLocationCache}, qui écrit le Live en différé.
+     */
+    public Mono<Boolean> appendTrajectory(UUID actorId, List<LocationFix> fixes) {
+        if (fixes == null || fixes.isEmpty()) {
+            return Mono.just(true);
+        }
+        List<ByteBuffer> args = List.of(stringArg(HISTORY_TTL.getSeconds()), TrajectoryCodec.encode(fixes));
+
+        return redisTemplate.execute(APPEND_TRAJECTORY_SCRIPT, List.of(PREFIX_TRAJECTORY + actorId), args,
+                RAW_ARGS_WRITER, LONG_RESULT_READER)
+                .next()
+                .map(len -> true)
+                .defaultIfEmpty(true)
+                .doOnError(e -> log.error("❌ Failed to append trajectory for {}", actorId, e))
+                .onErrorReturn(false);
+    }
+
+    /**
+     * Écrit les positions Live de plusieurs drivers (dernier fix de chacun) : un
+     * script pour les clés de contrôle, puis une commande par cellule touchée.
+     * Retourne le nombre de positions réellement écrites et de commandes envoyées.
+     */
+    public Mono<LiveWrite> saveLivePositions(Map<UUID, LocationFix> latestFixes) {
+        if (latestFixes.isEmpty()) {
+            return Mono.just(new LiveWrite(0, 0));
+        }
+        List<LiveUpdate> updates = new ArrayList<>(latestFixes.size());
+        List<ByteBuffer> args = new ArrayList<>(latestFixes.size() * 5 + 1);
+        args.add(stringArg(Instant.now().getEpochSecond()));
+        latestFixes.forEach((actorId, fix) -> {
+            String cell = GeoCells.cellOf(fix.latitude(), fix.longitude(), cellPrecision);
+            updates.add(new LiveUpdate(actorId.toString(), new Point(fix.longitude(), fix.latitude()), cell));
+            // Le membre reste sérialisé comme par opsForGeo() pour rester lisible en GEOPOS
+            args.add(valueArg(actorId.toString()));
+            args.add(stringArg(fix.longitude())); // Redis utilise (Longitude, Latitude)
+            args.add(stringArg(fix.latitude()));
+            args.add(stringArg(fix.timestamp()));
+            args.add(stringArg(cell));
+        });
+
+        return redisTemplate.execute(LIVE_UPDATE_SCRIPT, List.of(KEY_GEO_LIVE_CELLS, KEY_LIVE_TIMESTAMPS, KEY_LIVE_LAST_SEEN),
+                args, RAW_ARGS_WRITER, STRING_RESULT_READER)
+                .next()
+                .defaultIfEmpty("")
+                .flatMap(lines -> {
+                    List<CellMove> moves = new ArrayList<>();
+                    for (String line : lines.isEmpty() ? new String[0] : lines.split("\n")) {
+                        int space = line.indexOf(' ');
+                        LiveUpdate update = updates.get(Integer.parseInt(line.substring(0, space)) - 1);
+                        moves.add(new CellMove(update.member(), update.point(), update.cell(),
+                                line.substring(space + 1)));
+                    }
+                    return applyCellMoves(PREFIX_GEO_LIVE_CELL, moves)
+                            .map(cellCommands -> new LiveWrite(moves.size(), 1 + cellCommands));
+                });
+    }
+
+    /**
+     * Résultat d'une écriture Live : positions écrites, commandes Redis envoyées
+     * (le script plus un GEOADD / ZREM par cellule).
+     */
+    public record LiveWrite(long written, int commands) {
+    }
+
+    private record LiveUpdate(String member, Point point, String cell) {
+    }
+
+    // Déplacement d'un membre vers sa cellule courante (previousCell = "-" si nouveau)
+    private record CellMove(String member, Point point, String cell, String previousCell) {
+    }
+
+    // Un GEOADD par cellule d'arrivée, puis un ZREM par cellule de départ : le membre
+    // n'est jamais absent des deux à la fois. Un fantôme laissé par deux écritures
+    // concurrentes est écarté par l'index à la lecture, puis retiré. Renvoie le
+    // nombre de commandes envoyées.
+    private Mono<Integer> applyCellMoves(String cellPrefix, List<CellMove> moves) {
+        if (moves.isEmpty()) {
+            return Mono.just(0);
+        }
+        Map<String, Map<Object, Point>> added = new HashMap<>();
+        Map<String, List<Object>> removed = new HashMap<>();
+        for (CellMove move : moves) {
+            added.computeIfAbsent(move.cell(), cell -> new HashMap<>()).put(move.member(), move.point());
+            if (!NO_CELL.equals(move.previousCell()) && !move.previousCell().equals(move.cell())) {
+                removed.computeIfAbsent(move.previousCell(), cell -> new ArrayList<>()).add(move.member());
+            }
+        }
+        return Flux.fromIterable(added.entrySet())
+                .flatMap(entry -> redisTemplate.opsForGeo().add(cellPrefix + entry.getKey(), entry.getValue()))
+                .then(removeFromCells(cellPrefix, removed))
+                .thenReturn(added.size() + removed.size());
+    }
+
+    private Mono<Void> removeFromCells(String cellPrefix, Map<String, List<Object>> membersByCell) {
+        return Flux.fromIterable(membersByCell.entrySet())
+                .flatMap(entry -> redisTemplate.opsForZSet().remove(cellPrefix + entry.getKey(),
+                        entry.getValue().toArray()))
+                .then();
+    }
+
+    // Cellule courante (index) de chaque membre indexé, en un HMGET
+    private Mono<Map<UUID, String>> currentCells(String cellIndexKey, Collection<UUID> ids) {
+        if (ids.isEmpty()) {
+            return Mono.just(Map.of());
+        }
+        List<UUID> members = List.copyOf(ids);
+        List<ByteBuffer> args = members.stream().map(id -> valueArg(id.toString())).toList();
+
+        return redisTemplate.execute(GET_CELLS_SCRIPT, List.of(cellIndexKey), args, RAW_ARGS_WRITER,
+                STRING_RESULT_READER)
+                .next()
+                .map(lines -> {
+                    Map<UUID, String> cells = new HashMap<>();
+                    for (String line : lines.isEmpty() ? new String[0] : lines.split("\n")) {
+                        int space = line.indexOf(' ');
+                        cells.put(members.get(Integer.parseInt(line.substring(0, space)) - 1),
+                                line.substring(space + 1));
+                    }
+                    return cells;
+                })
+                .defaultIfEmpty(Map.of());
+    }
+
+    private ByteBuffer valueArg(Object value) {
+        return redisTemplate.getSerializationContext().getValueSerializationPair().write(value);
+    }
+
+    private Mono<String> toJson(Object value) {
+        return Mono.fromCallable(() -> objectMapper.writeValueAsString(value));
+    }
+
+    private <T> Mono<T> fromJson(Object raw, Class<T> type) {
+        return Mono.fromCallable(() -> objectMapper.readValue(raw.toString(), type));
+    }
+
+    private static ByteBuffer stringArg(Object value) {
+        return ByteBuffer.wrap(String.valueOf(value).getBytes(StandardCharsets.UTF_8));
+    }
+
     @Override
     public Mono<Location> getLocation(UUID actorId) {
-        // opsForGeo().position() retourne un Mono<Point> correspondant au membre
-        // demandé.
-        // Si le membre n'est pas dans le Set, le Mono est vide.
-        return redisTemplate.opsForGeo()
-                .position(KEY_GEO_LIVE, actorId.toString())
-                .map(p -> new Location(p.getY(), p.getX())); // Point.y = Lat, Point.x = Lon
+        // Si le membre n'est pas dans le Live, le Mono est vide
+        return getLocations(List.of(actorId))
+                .flatMap(locations -> Mono.justOrEmpty(locations.get(actorId)));
+    }
+
+    @Override
+    public Mono<Map<UUID, Location>> getLocations(Collection<UUID> actorIds) {
+        // Cellules (index) en un HMGET, puis un GEOPOS par cellule (membres groupés)
+        return currentCells(KEY_GEO_LIVE_CELLS, actorIds)
+                .flatMapMany(cells -> {
+                    Map<String, List<UUID>> byCell = new HashMap<>();
+                    cells.forEach((id, cell) -> byCell.computeIfAbsent(cell, c -> new ArrayList<>()).add(id));
+                    return Flux.fromIterable(byCell.entrySet());
+                })
+                .flatMap(entry -> {
+                    List<UUID> ids = entry.getValue();
+                    return redisTemplate.opsForGeo()
+                            .position(PREFIX_GEO_LIVE_CELL + entry.getKey(), ids.stream().map(UUID::toString).toArray())
+                            .flatMapIterable(points -> {
+                                List<Map.Entry<UUID, Location>> found = new ArrayList<>();
+                                for (int i = 0; i < ids.size(); i++) {
+                                    Point point = points.get(i);
+                                    if (point != null) {
+                                        // Y=Lat, X=Lon
+                                        found.add(Map.entry(ids.get(i), new Location(point.getY(), point.getX())));
+                                    }
+                                }
+                                return found;
+                            });
+                })
+                .collectMap(Map.Entry::getKey, Map.Entry::getValue);
+    }
+
+    @Override
+    public Mono<Flux<Location>> watchLocation(UUID actorId) {
+        return receiveText(PREFIX_ACTOR_LOCATION_CHANNEL + actorId)
+                .map(messages -> messages.map(latLon -> {
+                    int space = latLon.indexOf(' ');
+                    return new Location(Double.parseDouble(latLon.substring(0, space)),
+                            Double.parseDouble(latLon.substring(space + 1)));
+                }));
+    }
+
+    // Abonnement à un canal texte ; le Mono se termine une fois le SUBSCRIBE confirmé
+    private Mono<Flux<String>> receiveText(String channel) {
+        var serialization = RedisSerializationContext.SerializationPair.fromSerializer(StringRedisSerializer.UTF_8);
+        return listenerContainer.receiveLater(List.of(ChannelTopic.of(channel)), serialization, serialization)
+                .map(messages -> messages.map(message -> message.getMessage()));
+    }
+
+    // Texte brut (pas de JSON) : même format que les messages publiés par les scripts
+    private Mono<Void> publishText(String channel, String message) {
+        return redisTemplate.execute(connection -> connection.pubSubCommands().publish(
+                StandardCharsets.UTF_8.encode(channel),
+                StandardCharsets.UTF_8.encode(message)))
+                .then();
+    }
+
+    @Override
+    public Mono<Long> evictStaleLocations(Instant lastSeenBefore, int batchSize) {
+        return redisTemplate.execute(EVICT_STALE_SCRIPT,
+                List.of(KEY_LIVE_LAST_SEEN, KEY_GEO_LIVE_CELLS, KEY_LIVE_TIMESTAMPS),
+                List.of(stringArg(lastSeenBefore.getEpochSecond()), stringArg(batchSize)),
+                RAW_ARGS_WRITER, STRING_RESULT_READER)
+                .next()
+                .defaultIfEmpty("")
+                .flatMap(lines -> {
+                    if (lines.isEmpty()) {
+                        return Mono.just(0L);
+                    }
+                    String[] evicted = lines.split("\n");
+                    Map<String, List<Object>> byCell = new HashMap<>();
+                    for (String line : evicted) {
+                        int space = line.indexOf(' ');
+                        String cell = line.substring(space + 1);
+                        if (!NO_CELL.equals(cell)) {
+                            byCell.computeIfAbsent(cell, c -> new ArrayList<>()).add(line.substring(0, space));
+                        }
+                    }
+                    return removeFromCells(PREFIX_GEO_LIVE_CELL, byCell).thenReturn((long) evicted.length);
+                });
     }
 
     @Override
     public Flux<GeoResult> findNearbyDrivers(Double latitude, Double longitude, Double radiusKm) {
+        LocalGeoIndexReplica replica = localGeoIndex.getIfAvailable();
+        if (replica != null && replica.isReady()) {
+            return Flux.fromIterable(replica.nearbyDrivers(latitude, longitude, radiusKm))
+                    .map(hit -> new GeoResult(hit.id(), hit.distanceKm(),
+                            new Location(hit.latitude(), hit.longitude())));
+        }
+
+        return searchCells(PREFIX_GEO_LIVE_CELL, latitude, longitude, radiusKm, 0)
+                .flatMap(hits -> verifyCells(KEY_GEO_LIVE_CELLS, PREFIX_GEO_LIVE_CELL, hits))
+                .flatMapIterable(hits -> hits)
+                .map(RedisAdapter::toGeoResult);
+    }
+
+    // Résultat d'un GEOSEARCH, avec la cellule où il a été trouvé
+    private record CellHit(String cell, UUID id, double distanceKm, Point point) {
+    }
+
+    private static GeoResult toGeoResult(CellHit hit) {
+        // Création de notre objet Location interne (Y=Lat, X=Lon)
+        return new GeoResult(hit.id(), hit.distanceKm(), new Location(hit.point().getY(), hit.point().getX()));
+    }
+
+    private Mono<List<CellHit>> searchCells(String cellPrefix, double latitude, double longitude, double radiusKm,
+            int countPerCell) {
         // 1. Définir le point central (Le passager)
         Point center = new Point(longitude, latitude); // Rappel: Redis c'est (Lon, Lat)
 
@@ -96,7 +650,7 @@ public class RedisAdapter
         Distance radius = new Distance(radiusKm, Metrics.KILOMETERS);
 
         // 3. Définir le cercle de recherche
-        org.springframework.data.geo.Circle circle = new org.springframework.data.geo.Circle(center, radius);
+        Circle circle = new Circle(center, radius);
 
         // 4. Configurer la commande Redis (GEOSEARCH)
         // - includeDistance() : On veut savoir à quelle distance ils sont
@@ -107,31 +661,52 @@ public class RedisAdapter
                 .includeDistance()
                 .includeCoordinates()
                 .sortAscending();
+        if (countPerCell > 0) {
+            args.limit(countPerCell);
+        }
 
-        // 5. Exécuter la commande
-        return redisTemplate.opsForGeo()
-                .radius(KEY_GEO_LIVE, circle, args)
-                .flatMap(geoResult -> {
-                    // Mapping du résultat Redis (GeoResult<RedisGeoCommands.GeoLocation<Object>>)
-                    // vers notre objet de domaine (LocationCachePort.GeoResult)
-
-                    String driverIdStr = (String) geoResult.getContent().getName();
-                    Point driverPoint = geoResult.getContent().getPoint();
-                    double dist = geoResult.getDistance().getValue(); // Distance dans l'unité demandée (km)
-
-                    try {
-                        UUID driverId = UUID.fromString(driverIdStr);
-
-                        // Création de notre objet Location interne
-                        Location loc = new Location(driverPoint.getY(), driverPoint.getX()); // Y=Lat, X=Lon
-
-                        // Création du résultat final
-                        return Mono.just(new GeoResult(driverId, dist, loc));
+        // 5. Exécuter la commande sur chaque cellule qui recoupe le cercle (une
+        // commande par clé)
+        return Flux.fromIterable(GeoCells.cellsCovering(latitude, longitude, radiusKm, cellPrecision))
+                .flatMap(cell -> redisTemplate.opsForGeo().radius(cellPrefix + cell, circle, args)
+                        .flatMap(geoResult -> {
+                            String memberIdStr = geoResult.getContent().getName().toString();
+                            try {
+                                return Mono.just(new CellHit(cell, UUID.fromString(memberIdStr),
+                                        geoResult.getDistance().getValue(), geoResult.getContent().getPoint()));
+                            } catch (IllegalArgumentException e) {
+                                log.warn("⚠️ Found invalid UUID in Geo Set: {}", memberIdStr);
+                                return Mono.empty();
+                            }
+                        }))
+                .collectList();
+    }
 
-                    } catch (IllegalArgumentException e) {
-                        log.warn("⚠️ Found invalid UUID in Geo Set: {}", driverIdStr);
-                        return Mono.empty();
+    // Ne garde que les résultats trouvés dans la cellule de l'index, triés par distance
+    // croissante : un membre en transit entre deux cellules n'apparaît qu'une fois.
+    // Les fantômes (autre cellule, ou plus indexés) sont retirés au passage.
+    private Mono<List<CellHit>> verifyCells(String cellIndexKey, String cellPrefix, List<CellHit> hits) {
+        if (hits.isEmpty()) {
+            return Mono.just(List.of());
+        }
+        return currentCells(cellIndexKey, hits.stream().map(CellHit::id).collect(Collectors.toSet()))
+                .flatMap(cells -> {
+                    List<CellHit> current = new ArrayList<>(hits.size());
+                    Map<String, List<Object>> ghosts = new HashMap<>();
+                    for (CellHit hit : hits) {
+                        if (hit.cell().equals(cells.get(hit.id()))) {
+                            current.add(hit);
+                        } else {
+                            ghosts.computeIfAbsent(hit.cell(), cell -> new ArrayList<>()).add(hit.id().toString());
+                        }
                     }
+                    current.sort(Comparator.comparingDouble(CellHit::distanceKm));
+                    return removeFromCells(cellPrefix, ghosts)
+                            .onErrorResume(e -> {
+                                log.warn("⚠️ Failed to remove stale Geo members: {}", e.getMessage());
+                                return Mono.empty();
+                            })
+                            .thenReturn(current);
                 });
     }
 
@@ -147,11 +722,13 @@ public class RedisAdapter
         // 1. Supprimer le cache profil utilisateur
         Mono<Boolean> delUser = redisTemplate.delete(userKey).map(l -> l > 0);
 
-        // 2. Supprimer de la carte Live (ZREM / GEO REMOVE)
-        // Cela le rend invisible pour la recherche de taxi
-        Mono<Long> delGeo = redisTemplate.opsForGeo().remove(KEY_GEO_LIVE, userIdStr);
+        // 2. Supprimer de la carte Live (index, cellule, horodatage, signe de vie)
+        // Cela le rend invisible pour la recherche de taxi ; sans horodatage, son
+        // prochain fix est accepté quelle que soit l'heure du téléphone
+        Mono<Long> delGeo = removeMember(List.of(KEY_GEO_LIVE_CELLS, KEY_LIVE_TIMESTAMPS, KEY_LIVE_LAST_SEEN),
+                PREFIX_GEO_LIVE_CELL, "d", userIdStr);
 
-        // Note: On NE supprime PAS l'historique (historyKey) ici !
+        // Note: On NE supprime PAS l'historique (buffer de trajectoire) ici !
         // On veut que le Cron puisse le traiter et le dumper en base même si l'user se
         // déconnecte.
         // L'historique expirera tout seul grâce au TTL si le cron ne passe pas.
@@ -161,18 +738,49 @@ public class RedisAdapter
 
     // --- OfferCachePort Implementation ---
 
+    // Entrée versionnée : servie seulement si version == offer:ver:{id}
+    private record OfferCacheEntry(long version, Offer offer) {
+    }
+
     @Override
-    public Mono<Boolean> saveInCache(Offer offer) {
+    public Mono<Offer> findOfferById(UUID offerId) {
+        // Entrée et version courante en un seul MGET
         return redisTemplate.opsForValue()
-                .set("offer:" + offer.id(), offer, Duration.ofMinutes(15));
+                .multiGet(List.of(PREFIX_OFFER + offerId, PREFIX_OFFER_VERSION + offerId))
+                .filter(values -> values.get(0) != null)
+                .flatMap(values -> fromJson(values.get(0), OfferCacheEntry.class)
+                        .filter(entry -> entry.version() == toLong(values.get(1)))
+                        .map(OfferCacheEntry::offer));
     }
 
     @Override
-    public Mono<Offer> findOfferById(UUID offerId) {
+    public Mono<Long> getOfferVersion(UUID offerId) {
         return redisTemplate.opsForValue()
-                .get("offer:" + offerId)
-                .cast(Offer.class)
-                .onErrorResume(e -> Mono.empty());
+                .get(PREFIX_OFFER_VERSION + offerId)
+                .map(RedisAdapter::toLong)
+                .defaultIfEmpty(0L);
+    }
+
+    @Override
+    public Mono<Boolean> saveInCache(Offer offer, long version) {
+        return toJson(new OfferCacheEntry(version, offer))
+                .flatMap(json -> redisTemplate.opsForValue()
+                        .set(PREFIX_OFFER + offer.id(), json, Duration.ofSeconds(offerTtlSeconds)));
+    }
+
+    @Override
+    public Mono<Long> invalidateOffer(UUID offerId) {
+        String versionKey = PREFIX_OFFER_VERSION + offerId;
+        // La version survit largement aux entrées : une entrée ne peut pas retomber
+        // sur une version "remise à zéro" par expiration
+        return redisTemplate.opsForValue().increment(versionKey)
+                .flatMap(version -> redisTemplate.expire(versionKey, OFFER_VERSION_TTL)
+                        .then(redisTemplate.delete(PREFIX_OFFER + offerId))
+                        .thenReturn(version));
+    }
+
+    private static long toLong(Object raw) {
+        return raw == null ? 0L : Long.parseLong(raw.toString());
     }
 
     // --- UserCachePort Implementation ---
@@ -190,6 +798,106 @@ public class RedisAdapter
                 .cast(User.class);
     }
 
+    // --- WalletCachePort Implementation ---
+
+    // Stocké en texte JSON (mapper principal) : le sérialiseur du template écrit les
+    // records (classes finales) sans information de type et ne saurait pas les relire
+    @Override
+    public Mono<Boolean> saveInCache(Wallet wallet) {
+        Duration ttl = Duration.ofSeconds(walletTtlSeconds);
+        return toJson(wallet)
+                .flatMap(json -> redisTemplate.opsForValue().set("wallet:owner:" + wallet.ownerId(), json, ttl))
+                .flatMap(saved -> redisTemplate.opsForValue()
+                        .set("wallet:id:" + wallet.id(), wallet.ownerId().toString(), ttl.multipliedBy(10)));
+    }
+
+    @Override
+    public Mono<Wallet> findWalletByOwnerId(UUID ownerId) {
+        return redisTemplate.opsForValue()
+                .get("wallet:owner:" + ownerId)
+                .flatMap(raw -> fromJson(raw, Wallet.class))
+                .onErrorResume(e -> Mono.empty());
+    }
+
+    @Override
+    public Flux<Wallet> findWalletsByOwnerIds(Collection<UUID> ownerIds) {
+        if (ownerIds.isEmpty()) {
+            return Flux.empty();
+        }
+        List<String> keys = ownerIds.stream().map(id -> "wallet:owner:" + id).toList();
+        // MGET : un seul aller-retour pour tout le lot
+        return redisTemplate.opsForValue()
+                .multiGet(keys)
+                .flatMapIterable(values -> values)
+                .filter(Objects::nonNull)
+                .concatMap(raw -> fromJson(raw, Wallet.class))
+                .onErrorResume(e -> Flux.empty());
+    }
+
+    @Override
+    public Mono<UUID> findOwnerIdByWalletId(UUID walletId) {
+        return redisTemplate.opsForValue()
+                .get("wallet:id:" + walletId)
+                .map(raw -> UUID.fromString(raw.toString()))
+                .onErrorResume(e -> Mono.empty());
+    }
+
+    @Override
+    public Mono<Void> evictWallet(UUID ownerId) {
+        return redisTemplate.delete("wallet:owner:" + ownerId)
+                .then(publishText(WALLET_EVICTIONS_CHANNEL, ownerId.toString()));
+    }
+
+    @Override
+    public Flux<UUID> evictedWallets() {
+        return receiveText(WALLET_EVICTIONS_CHANNEL)
+                .flatMapMany(messages -> messages)
+                .flatMap(RedisAdapter::parseUuidMessage);
+    }
+
+    private static Mono<UUID> parseUuidMessage(String id) {
+        try {
+            return Mono.just(UUID.fromString(id));
+        } catch (IllegalArgumentException e) {
+            log.warn("⚠️ Malformed cache eviction message ignored: {}", id);
+            return Mono.empty();
+        }
+    }
+
+    // --- VehicleCachePort Implementation ---
+
+    @Override
+    public Mono<Boolean> saveInCache(Vehicle vehicle) {
+        return toJson(new CachedVehicle(vehicle, System.currentTimeMillis()))
+                .flatMap(json -> redisTemplate.opsForValue()
+                        .set(PREFIX_VEHICLE + vehicle.id(), json, Duration.ofSeconds(vehicleTtlSeconds)));
+    }
+
+    @Override
+    public Mono<CachedVehicle> findVehicleById(UUID vehicleId) {
+        return redisTemplate.opsForValue()
+                .get(PREFIX_VEHICLE + vehicleId)
+                .flatMap(raw -> fromJson(raw, CachedVehicle.class))
+                .onErrorResume(e -> Mono.empty());
+    }
+
+    @Override
+    public Mono<Void> evictVehicle(UUID vehicleId) {
+        return redisTemplate.delete(PREFIX_VEHICLE + vehicleId).then();
+    }
+
+    @Override
+    public Mono<Void> publishVehicleChanged(UUID vehicleId) {
+        return publishText(VEHICLE_CHANGES_CHANNEL, vehicleId.toString());
+    }
+
+    @Override
+    public Flux<UUID> changedVehicles() {
+        return receiveText(VEHICLE_CHANGES_CHANNEL)
+                .flatMapMany(messages -> messages)
+                .flatMap(RedisAdapter::parseUuidMessage);
+    }
+
     // --- FareCachePort Implementation ---
 
     @Override
@@ -205,25 +913,272 @@ public class RedisAdapter
                 .cast(Fare.class);
     }
 
+    @Override
+    public Flux<GeoResult> findNearbyEligibleDrivers(Double latitude, Double longitude, Double radiusKm,
+            int limit) {
+        LocalGeoIndexReplica replica = localGeoIndex.getIfAvailable();
+        if (replica != null && replica.isReady()) {
+            // Proximité en mémoire (plafonnée comme côté Redis), éligibilité en un seul
+            // SMISMEMBER
+            List<LocalGeoIndex.Hit> hits = replica.nearbyDrivers(latitude, longitude, radiusKm,
+                    limit > 0 ? limit * ELIGIBLE_CANDIDATE_FACTOR : 0);
+            if (hits.isEmpty()) {
+                return Flux.empty();
+            }
+            Object[] members = hits.stream().map(hit -> hit.id().toString()).toArray();
+            return redisTemplate.opsForSet().isMember(KEY_ELIGIBLE_DRIVERS, members)
+                    .flatMapIterable(eligibility -> hits.stream()
+                            .filter(hit -> Boolean.TRUE.equals(eligibility.get(hit.id().toString())))
+                            .limit(limit > 0 ? limit : Long.MAX_VALUE)
+                            .map(hit -> new GeoResult(hit.id(), hit.distanceKm(),
+                                    new Location(hit.latitude(), hit.longitude())))
+                            .toList());
+        }
+
+        // COUNT par cellule : marge pour les drivers écartés par l'éligibilité.
+        // Index et éligibilité (SMISMEMBER) vérifiés en parallèle.
+        int countPerCell = limit > 0 ? limit * ELIGIBLE_CANDIDATE_FACTOR : 0;
+        return searchCells(PREFIX_GEO_LIVE_CELL, latitude, longitude, radiusKm, countPerCell)
+                .filter(hits -> !hits.isEmpty())
+                .flatMap(hits -> Mono.zip(
+                        verifyCells(KEY_GEO_LIVE_CELLS, PREFIX_GEO_LIVE_CELL, hits),
+                        redisTemplate.opsForSet().isMember(KEY_ELIGIBLE_DRIVERS,
+                                hits.stream().map(hit -> hit.id().toString()).distinct().toArray())))
+                .flatMapIterable(tuple -> tuple.getT1().stream()
+                        .filter(hit -> Boolean.TRUE.equals(tuple.getT2().get(hit.id().toString())))
+                        .limit(limit > 0 ? limit : Long.MAX_VALUE)
+                        .map(RedisAdapter::toGeoResult)
+                        .toList());
+    }
+
+    // --- OfferExpiryPort Implementation ---
+
+    @Override
+    public Mono<Void> scheduleExpiry(UUID offerId, Instant deadline) {
+        return redisTemplate.opsForZSet()
+                .add(KEY_OFFERS_EXPIRY, offerId.toString(), deadline.getEpochSecond())
+                .then();
+    }
+
+    @Override
+    public Mono<Void> cancelExpiry(UUID offerId) {
+        return redisTemplate.opsForZSet().remove(KEY_OFFERS_EXPIRY, offerId.toString()).then();
+    }
+
+    @Override
+    public Flux<UUID> popExpired(Instant now, int batchSize) {
+        return redisTemplate.execute(POP_EXPIRED_SCRIPT, List.of(KEY_OFFERS_EXPIRY),
+                List.of(stringArg(now.getEpochSecond()), stringArg(batchSize)),
+                RAW_ARGS_WRITER, STRING_RESULT_READER)
+                .next()
+                .flatMapIterable(ids -> ids.isEmpty() ? List.<String>of() : List.of(ids.split(" ")))
+                .flatMap(id -> {
+                    try {
+                        return Mono.just(UUID.fromString(id));
+                    } catch (IllegalArgumentException e) {
+                        log.warn("⚠️ Found invalid entry in offer expiry set: {}", id);
+                        return Mono.empty();
+                    }
+                });
+    }
+
+    @Override
+    public Mono<Long> backfillOpenOffers(Instant deadline) {
+        // Les offres de l'ancienne clé Geo sont d'abord reprises dans les cellules,
+        // pour recevoir elles aussi leur échéance
+        return migrateLegacyGeoKey(LEGACY_KEY_OFFERS_GEO, offers -> Flux.fromIterable(offers.entrySet())
+                .flatMap(entry -> saveOfferLocation(entry.getKey(), entry.getValue().latitude(),
+                        entry.getValue().longitude()), 8)
+                .then())
+                .doOnNext(migrated -> {
+                    if (migrated > 0) {
+                        log.info("🚚 Migrated {} pending offers from {}", migrated, LEGACY_KEY_OFFERS_GEO);
+                    }
+                })
+                .then(redisTemplate.execute(BACKFILL_EXPIRY_SCRIPT, List.of(KEY_OFFERS_EXPIRY, KEY_OFFERS_GEO_CELLS),
+                        List.of(stringArg(deadline.getEpochSecond())),
+                        RAW_ARGS_WRITER, LONG_RESULT_READER)
+                        .next())
+                .defaultIfEmpty(0L);
+    }
+
+    /**
+     * Reprise unique de l'ancien Live (un seul Geo Set) dans les cellules. Les
+     * positions reprises portent le ts 0 : un fix reçu entre-temps n'est jamais
+     * écrasé, et un driver silencieux sera retiré par le balayage habituel.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateLegacyLivePositions() {
+        migrateLegacyGeoKey(LEGACY_KEY_GEO_LIVE, positions -> {
+            Map<UUID, LocationFix> fixes = new HashMap<>();
+            positions.forEach((id, location) -> fixes.put(id,
+                    new LocationFix(location.latitude(), location.longitude(), 0L)));
+            return saveLivePositions(fixes).map(LiveWrite::written);
+        }).subscribe(
+                migrated -> {
+                    if (migrated > 0) {
+                        log.info("🚚 Migrated {} live positions from {}", migrated, LEGACY_KEY_GEO_LIVE);
+                    }
+                },
+                e -> log.error("❌ Error while migrating {}", LEGACY_KEY_GEO_LIVE, e));
+    }
+
+    // ZSCAN + GEOPOS par lots sur l'ancienne clé, écriture via le chemin normal, puis
+    // DEL. Sans ancienne clé, ne fait rien.
+    private Mono<Long> migrateLegacyGeoKey(String legacyKey, Function<Map<UUID, Location>, Mono<?>> writer) {
+        return redisTemplate.hasKey(legacyKey)
+                .filter(Boolean::booleanValue)
+                .flatMap(exists -> redisTemplate.opsForZSet().scan(legacyKey)
+                        .map(ZSetOperations.TypedTuple::getValue)
+                        .buffer(LEGACY_MIGRATION_BATCH)
+                        .concatMap(members -> redisTemplate.opsForGeo().position(legacyKey, members.toArray())
+                                .flatMap(points -> {
+                                    Map<UUID, Location> batch = new HashMap<>();
+                                    for (int i = 0; i < members.size(); i++) {
+                                        Point point = points.get(i);
+                                        try {
+                                            if (point != null) {
+                                                batch.put(UUID.fromString(members.get(i).toString()),
+                                                        new Location(point.getY(), point.getX()));
+                                            }
+                                        } catch (IllegalArgumentException e) {
+                                            log.warn("⚠️ Found invalid UUID in Geo Set: {}", members.get(i));
+                                        }
+                                    }
+                                    return writer.apply(batch).thenReturn((long) batch.size());
+                                }))
+                        .reduce(0L, Long::sum)
+                        .flatMap(migrated -> redisTemplate.delete(legacyKey).thenReturn(migrated)))
+                .defaultIfEmpty(0L);
+    }
+
+    // --- OfferFeedPort Implementation ---
+
+    @Override
+    public Mono<Void> publish(OfferFeedEvent event) {
+        String message = event.type() + " " + event.offerId() + " " + event.latitude() + " " + event.longitude();
+        return publishText(OFFER_FEED_CHANNEL, message);
+    }
+
+    @Override
+    public Mono<Flux<OfferFeedEvent>> events() {
+        return receiveText(OFFER_FEED_CHANNEL)
+                .map(messages -> messages.concatMap(message -> {
+                    String[] parts = message.split(" ");
+                    try {
+                        return Mono.just(new OfferFeedEvent(EventType.valueOf(parts[0]), UUID.fromString(parts[1]),
+                                parseNullableDouble(parts[2]), parseNullableDouble(parts[3])));
+                    } catch (RuntimeException e) {
+                        log.warn("⚠️ Malformed offer feed message ignored: {}", message);
+                        return Mono.empty();
+                    }
+                }));
+    }
+
+    private static Double parseNullableDouble(String value) {
+        return "null".equals(value) ? null : Double.valueOf(value);
+    }
+
+    // --- RideFeedPort Implementation ---
+
+    @Override
+    public Mono<Void> publishState(UUID rideId, RideState state) {
+        return publishText(PREFIX_RIDE_STATE_CHANNEL + rideId, state.name());
+    }
+
+    @Override
+    public Mono<Flux<RideState>> watchState(UUID rideId) {
+        return receiveText(PREFIX_RIDE_STATE_CHANNEL + rideId)
+                .map(messages -> messages.flatMap(state -> {
+                    try {
+                        return Mono.just(RideState.valueOf(state));
+                    } catch (IllegalArgumentException e) {
+                        log.warn("⚠️ Malformed ride state message ignored: {}", state);
+                        return Mono.empty();
+                    }
+                }));
+    }
+
+    // --- DriverEligibilityCachePort Implementation ---
+
+    @Override
+    public Mono<Void> setDriverEligible(UUID driverId, boolean eligible) {
+        return redisTemplate.execute(SET_ELIGIBLE_SCRIPT, List.of(KEY_ELIGIBLE_DRIVERS, KEY_ELIGIBLE_CHANGES),
+                List.of(valueArg(driverId.toString()), stringArg(eligible ? "1" : "0"),
+                        stringArg(ELIGIBLE_CHANGES_RETENTION.toMillis())),
+                RAW_ARGS_WRITER, LONG_RESULT_READER)
+                .then();
+    }
+
+    @Override
+    public Mono<Long> startRebuild() {
+        // Horloge de Redis : la même que celle du journal
+        return redisTemplate.execute(connection -> connection.serverCommands().time()).next();
+    }
+
+    @Override
+    public Mono<Void> replaceEligibleDrivers(Collection<UUID> driverIds, long since) {
+        // Construction à côté puis RENAME : la recherche ne voit jamais un ensemble
+        // partiel. Une clé par reconstruction : deux instances ne se mélangent pas.
+        String tmpKey = PREFIX_ELIGIBLE_REBUILD + UUID.randomUUID();
+        Object[] members = driverIds.stream().map(UUID::toString).toArray();
+        Mono<Long> fill = members.length == 0 ? Mono.just(0L) : redisTemplate.opsForSet().add(tmpKey, members);
+        return fill
+                .then(redisTemplate.execute(FINISH_ELIGIBLE_REBUILD_SCRIPT,
+                        List.of(tmpKey, KEY_ELIGIBLE_DRIVERS, KEY_ELIGIBLE_CHANGES),
+                        List.of(stringArg(since)), RAW_ARGS_WRITER, LONG_RESULT_READER)
+                        .next())
+                .then();
+    }
+
     @Override
     public Mono<Void> saveOfferLocation(UUID offerId, Double lat, Double lon) {
-        return redisTemplate.opsForGeo()
-                .add(KEY_OFFERS_GEO, new Point(lon, lat), offerId.toString())
+        String member = offerId.toString();
+        String cell = GeoCells.cellOf(lat, lon, cellPrecision);
+        List<ByteBuffer> args = List.of(
+                valueArg(member),
+                stringArg(lon),
+                stringArg(lat),
+                stringArg(cell),
+                stringArg("O"));
+        return redisTemplate.execute(SAVE_MEMBER_SCRIPT, List.of(KEY_OFFERS_GEO_CELLS), args, RAW_ARGS_WRITER,
+                STRING_RESULT_READER)
+                .next()
+                .defaultIfEmpty(NO_CELL)
+                .flatMap(previous -> applyCellMoves(PREFIX_OFFERS_GEO_CELL,
+                        List.of(new CellMove(member, new Point(lon, lat), cell, previous))))
                 .then();
     }
 
     @Override
     public Mono<Void> removeOfferLocation(UUID offerId) {
-        return redisTemplate.opsForGeo()
-                .remove(KEY_OFFERS_GEO, offerId.toString())
+        return removeMember(List.of(KEY_OFFERS_GEO_CELLS), PREFIX_OFFERS_GEO_CELL, "o", offerId.toString())
                 .then();
     }
 
     @Override
     public Flux<UUID> findNearbyOfferIds(Double lat, Double lon, Double radiusKm) {
-        Circle circle = new Circle(new Point(lon, lat), new Distance(radiusKm, Metrics.KILOMETERS));
-        return redisTemplate.opsForGeo()
-                .radius(KEY_OFFERS_GEO, circle)
-                .map(res -> UUID.fromString(res.getContent().getName().toString()));
+        LocalGeoIndexReplica replica = localGeoIndex.getIfAvailable();
+        if (replica != null && replica.isReady()) {
+            return Flux.fromIterable(replica.nearbyOffers(lat, lon, radiusKm))
+                    .map(LocalGeoIndex.Hit::id);
+        }
+
+        return searchCells(PREFIX_OFFERS_GEO_CELL, lat, lon, radiusKm, 0)
+                .flatMap(hits -> verifyCells(KEY_OFFERS_GEO_CELLS, PREFIX_OFFERS_GEO_CELL, hits))
+                .flatMapIterable(hits -> hits)
+                .map(CellHit::id);
+    }
+
+    // Retire le membre de l'index et des clés de contrôle (script), puis de sa cellule.
+    // keys : index des cellules, puis horodatages et signes de vie pour le Live.
+    private Mono<Long> removeMember(List<String> keys, String cellPrefix, String messageType, String member) {
+        return redisTemplate.execute(REMOVE_MEMBER_SCRIPT, keys,
+                List.of(valueArg(member), stringArg(messageType)),
+                RAW_ARGS_WRITER, STRING_RESULT_READER)
+                .next()
+                .filter(cell -> !cell.isEmpty())
+                .flatMap(cell -> redisTemplate.opsForZSet().remove(cellPrefix + cell, member))
+                .defaultIfEmpty(0L);
     }
-}
\ No newline at end of file
+}
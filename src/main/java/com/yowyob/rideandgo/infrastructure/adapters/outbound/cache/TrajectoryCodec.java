@@ -0,0 +1,129 @@
+package com.yowyob.rideandgo.infrastructure.adapters.outbound.cache;
+
+import com.yowyob.rideandgo.domain.ports.out.LocationCachePort.LocationFix;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * Encodage binaire compact des points de trajectoire bufferisés dans Redis.
+ * <p>
+ * Le buffer d'un driver est une suite de blocs ajoutés par APPEND, un bloc par lot
+ * de fixes :
+ * <pre>
+ * varint  n                       nombre de points du bloc
+ * zigzag  lat, lon                premier point, en micro-degrés (1e-6, ~11 cm)
+ * varint  ts                      premier point, en secondes epoch
+ * zigzag  dLat, dLon, dTs         (n - 1) fois, deltas par rapport au point précédent
+ * </pre>
+ * Un point isolé coûte ~14 octets, un point dans un lot 3 à 6 octets, contre ~35
+ * octets pour l'ancienne chaîne JSON "lat,lon,timestamp".
+ */
+public final class TrajectoryCodec {
+
+    private static final double SCALE = 1_000_000d;
+
+    // varint : 5 octets max pour un int, 10 pour un long
+    private static final int MAX_POINT_BYTES = 5 + 5 + 10;
+
+    private TrajectoryCodec() {
+    }
+
+    /**
+     * Callback appelé pour chaque point décodé (évite toute allocation par point).
+     */
+    @FunctionalInterface
+    public interface PointConsumer {
+        void accept(double latitude, double longitude, long timestamp);
+    }
+
+    /**
+     * Encode un lot de fixes (triés par horodatage) en un bloc.
+     */
+    public static ByteBuffer encode(List<LocationFix> fixes) {
+        ByteBuffer buf = ByteBuffer.allocate(5 + fixes.size() * MAX_POINT_BYTES);
+        writeVarLong(buf, fixes.size());
+
+        int prevLat = 0;
+        int prevLon = 0;
+        long prevTs = 0;
+        boolean first = true;
+        for (LocationFix fix : fixes) {
+            int lat = (int) Math.round(fix.latitude() * SCALE);
+            int lon = (int) Math.round(fix.longitude() * SCALE);
+            long ts = fix.timestamp();
+            if (first) {
+                writeVarLong(buf, zigzag(lat));
+                writeVarLong(buf, zigzag(lon));
+                writeVarLong(buf, ts);
+                first = false;
+            } else {
+                writeVarLong(buf, zigzag(lat - prevLat));
+                writeVarLong(buf, zigzag(lon - prevLon));
+                writeVarLong(buf, zigzag(ts - prevTs));
+            }
+            prevLat = lat;
+            prevLon = lon;
+            prevTs = ts;
+        }
+        return buf.flip();
+    }
+
+    /**
+     * Décode tous les blocs du buffer, directement depuis le ByteBuffer renvoyé par
+     * Redis (pas de copie intermédiaire).
+     *
+     * @return le nombre de points décodés
+     */
+    public static int decode(ByteBuffer buf, PointConsumer consumer) {
+        int total = 0;
+        while (buf.hasRemaining()) {
+            long count = readVarLong(buf);
+            int lat = 0;
+            int lon = 0;
+            long ts = 0;
+            for (long i = 0; i < count; i++) {
+                if (i == 0) {
+                    lat = (int) unzigzag(readVarLong(buf));
+                    lon = (int) unzigzag(readVarLong(buf));
+                    ts = readVarLong(buf);
+                } else {
+                    lat += (int) unzigzag(readVarLong(buf));
+                    lon += (int) unzigzag(readVarLong(buf));
+                    ts += unzigzag(readVarLong(buf));
+                }
+                consumer.accept(lat / SCALE, lon / SCALE, ts);
+                total++;
+            }
+        }
+        return total;
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void writeVarLong(ByteBuffer buf, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buf.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buf.put((byte) value);
+    }
+
+    private static long readVarLong(ByteBuffer buf) {
+        long result = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buf.get();
+            result |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return result;
+    }
+}
@@ -0,0 +1,193 @@
+package com.yowyob.rideandgo.infrastructure.adapters.outbound.external;
+
+import com.yowyob.rideandgo.domain.model.Wallet;
+import com.yowyob.rideandgo.domain.ports.out.PaymentPort;
+import com.yowyob.rideandgo.domain.ports.out.WalletCachePort;
+import com.yowyob.rideandgo.infrastructure.adapters.outbound.cache.LocalTtlCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Cache des portefeuilles devant le service de paiement distant : mémoire locale
+ * (quelques secondes) puis Redis (TTL court), puis appel HTTP.
+ * <p>
+ * Un paiement invalide l'entrée dans Redis, et l'éviction est diffusée (pub/sub) à
+ * la mémoire locale de toutes les instances. Après un débit, un solde antérieur
+ * reste donc lisible le temps de la diffusion, ou au plus local-ttl-seconds si le
+ * message est perdu.
+ */
+@Slf4j
+@Primary
+@Component
+public class CachedPaymentAdapter implements PaymentPort {
+
+    private final PaymentAdapter delegate;
+    private final WalletCachePort walletCache;
+
+    private final LocalTtlCache<UUID, Wallet> localWallets;
+    // walletId -> ownerId, pour invalider après un paiement sans relire Redis
+    private final LocalTtlCache<UUID, UUID> localOwners;
+
+    private final Counter localHits;
+    private final Counter redisHits;
+    private final Counter misses;
+
+    private Disposable evictions;
+
+    public CachedPaymentAdapter(PaymentAdapter delegate, WalletCachePort walletCache, MeterRegistry meterRegistry,
+            @Value("${application.payment.cache.local-ttl-seconds:5}") long localTtlSeconds,
+            @Value("${application.payment.cache.local-max-size:10000}") int localMaxSize) {
+        this.delegate = delegate;
+        this.walletCache = walletCache;
+        this.localWallets = new LocalTtlCache<>(localMaxSize, Duration.ofSeconds(localTtlSeconds));
+        this.localOwners = new LocalTtlCache<>(localMaxSize, Duration.ofHours(1));
+        this.localHits = Counter.builder("rideandgo.wallet.cache")
+                .description("Lectures de portefeuille par niveau de cache")
+                .tag("result", "hit_local")
+                .register(meterRegistry);
+        this.redisHits = Counter.builder("rideandgo.wallet.cache")
+                .description("Lectures de portefeuille par niveau de cache")
+                .tag("result", "hit_redis")
+                .register(meterRegistry);
+        this.misses = Counter.builder("rideandgo.wallet.cache")
+                .description("Lectures de portefeuille par niveau de cache")
+                .tag("result", "miss")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Évictions faites par n'importe quelle instance : retirées de la mémoire locale.
+     * L'abonnement est repris après une coupure.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void listenForEvictions() {
+        evictions = walletCache.evictedWallets()
+                .doOnError(e -> log.warn("⚠️ Wallet evictions subscription lost: {}", e.getMessage()))
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1)).maxBackoff(Duration.ofSeconds(30)))
+                .subscribe(localWallets::remove);
+    }
+
+    @PreDestroy
+    public void stopListening() {
+        if (evictions != null) {
+            evictions.dispose();
+        }
+    }
+
+    @Override
+    public Mono<Wallet> createWallet(UUID ownerId, String ownerName) {
+        // Write-through : le portefeuille créé est immédiatement lisible en cache
+        return delegate.createWallet(ownerId, ownerName)
+                .flatMap(wallet -> store(wallet).thenReturn(wallet));
+    }
+
+    @Override
+    public Mono<Wallet> getWalletByOwnerId(UUID ownerId) {
+        Wallet local = localWallets.get(ownerId);
+        if (local != null) {
+            localHits.increment();
+            return Mono.just(local);
+        }
+        return walletCache.findWalletByOwnerId(ownerId)
+                .doOnNext(wallet -> {
+                    redisHits.increment();
+                    remember(wallet);
+                })
+                .switchIfEmpty(Mono.defer(() -> {
+                    misses.increment();
+                    // Les erreurs (portefeuille introuvable) ne sont pas mises en cache
+                    return delegate.getWalletByOwnerId(ownerId)
+                            .flatMap(wallet -> store(wallet).thenReturn(wallet));
+                }));
+    }
+
+    @Override
+    public Flux<Wallet> getWalletsByOwnerIds(Collection<UUID> ownerIds) {
+        List<Wallet> found = new ArrayList<>();
+        Set<UUID> remaining = new HashSet<>();
+        for (UUID ownerId : ownerIds) {
+            Wallet local = localWallets.get(ownerId);
+            if (local != null) {
+                found.add(local);
+            } else {
+                remaining.add(ownerId);
+            }
+        }
+        localHits.increment(found.size());
+        if (remaining.isEmpty()) {
+            return Flux.fromIterable(found);
+        }
+
+        // Niveau 2 en un MGET, puis appel distant pour les seuls absents
+        Flux<Wallet> fromRedisAndRemote = walletCache.findWalletsByOwnerIds(remaining)
+                .doOnNext(this::remember)
+                .collectList()
+                .flatMapMany(cached -> {
+                    redisHits.increment(cached.size());
+                    Set<UUID> missing = new HashSet<>(remaining);
+                    cached.forEach(wallet -> missing.remove(wallet.ownerId()));
+                    misses.increment(missing.size());
+                    if (missing.isEmpty()) {
+                        return Flux.fromIterable(cached);
+                    }
+                    return Flux.fromIterable(cached)
+                            .concatWith(delegate.getWalletsByOwnerIds(missing)
+                                    .flatMap(wallet -> store(wallet).thenReturn(wallet)));
+                });
+
+        return Flux.fromIterable(found).concatWith(fromRedisAndRemote);
+    }
+
+    @Override
+    public Mono<Void> processPayment(UUID walletId, double amount) {
+        return delegate.processPayment(walletId, amount)
+                .then(Mono.defer(() -> evictByWalletId(walletId)));
+    }
+
+    private Mono<Void> evictByWalletId(UUID walletId) {
+        UUID knownOwner = localOwners.get(walletId);
+        Mono<UUID> owner = knownOwner != null ? Mono.just(knownOwner) : walletCache.findOwnerIdByWalletId(walletId);
+        return owner
+                .flatMap(ownerId -> {
+                    localWallets.remove(ownerId);
+                    return walletCache.evictWallet(ownerId);
+                })
+                .onErrorResume(e -> {
+                    log.warn("⚠️ Wallet cache eviction failed for wallet {}: {}", walletId, e.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    private void remember(Wallet wallet) {
+        localWallets.put(wallet.ownerId(), wallet);
+        localOwners.put(wallet.id(), wallet.ownerId());
+    }
+
+    private Mono<Boolean> store(Wallet wallet) {
+        remember(wallet);
+        return walletCache.saveInCache(wallet)
+                .onErrorResume(e -> {
+                    log.warn("⚠️ Failed to cache wallet of {}: {}", wallet.ownerId(), e.getMessage());
+                    return Mono.just(false);
+                });
+    }
+}
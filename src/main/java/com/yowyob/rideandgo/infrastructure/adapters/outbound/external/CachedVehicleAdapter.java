@@ -0,0 +1,229 @@
+package com.yowyob.rideandgo.infrastructure.adapters.outbound.external;
+
+import com.yowyob.rideandgo.domain.model.Vehicle;
+import com.yowyob.rideandgo.domain.ports.out.VehicleCachePort;
+import com.yowyob.rideandgo.domain.ports.out.VehicleCachePort.CachedVehicle;
+import com.yowyob.rideandgo.domain.ports.out.VehicleRepositoryPort;
+import com.yowyob.rideandgo.infrastructure.adapters.outbound.cache.LocalTtlCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.codec.multipart.FilePart;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cache des véhicules devant le service distant : mémoire locale (LRU borné) puis
+ * Redis, puis appel HTTP (véhicule + images).
+ * <p>
+ * Une entrée plus vieille que la fraîcheur configurée est servie telle quelle et
+ * rechargée en arrière-plan (stale-while-revalidate) : la latence du service
+ * véhicule n'est payée qu'au premier accès. Un seul rechargement par véhicule à la
+ * fois. Les modifications faites par cette application (patch, documents, images)
+ * mettent à jour ou invalident l'entrée Redis, et sont signalées (pub/sub) à la
+ * mémoire locale de toutes les instances. Si l'abonnement tombe, la mémoire locale
+ * est vidée avant de se réabonner.
+ */
+@Slf4j
+@Primary
+@Component
+public class CachedVehicleAdapter implements VehicleRepositoryPort {
+
+    private final VehicleAdapter delegate;
+    private final VehicleCachePort vehicleCache;
+
+    private final LocalTtlCache<UUID, CachedVehicle> localVehicles;
+    private final long freshMillis;
+    // Rechargements en cours : les lectures concurrentes d'un même véhicule partagent l'appel
+    private final Map<UUID, Mono<Vehicle>> inFlight = new ConcurrentHashMap<>();
+
+    private final Counter localHits;
+    private final Counter redisHits;
+    private final Counter staleHits;
+    private final Counter misses;
+
+    private Disposable changes;
+
+    public CachedVehicleAdapter(VehicleAdapter delegate, VehicleCachePort vehicleCache, MeterRegistry meterRegistry,
+            @Value("${application.vehicle.cache.fresh-seconds:300}") long freshSeconds,
+            @Value("${application.vehicle.cache.local-ttl-seconds:600}") long localTtlSeconds,
+            @Value("${application.vehicle.cache.local-max-size:5000}") int localMaxSize) {
+        this.delegate = delegate;
+        this.vehicleCache = vehicleCache;
+        this.freshMillis = Duration.ofSeconds(freshSeconds).toMillis();
+        this.localVehicles = new LocalTtlCache<>(localMaxSize, Duration.ofSeconds(localTtlSeconds));
+        this.localHits = Counter.builder("rideandgo.vehicle.cache")
+                .description("Lectures de véhicule par niveau de cache")
+                .tag("result", "hit_local")
+                .register(meterRegistry);
+        this.redisHits = Counter.builder("rideandgo.vehicle.cache")
+                .description("Lectures de véhicule par niveau de cache")
+                .tag("result", "hit_redis")
+                .register(meterRegistry);
+        this.staleHits = Counter.builder("rideandgo.vehicle.cache")
+                .description("Lectures de véhicule par niveau de cache")
+                .tag("result", "stale")
+                .register(meterRegistry);
+        this.misses = Counter.builder("rideandgo.vehicle.cache")
+                .description("Lectures de véhicule par niveau de cache")
+                .tag("result", "miss")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Véhicules modifiés par n'importe quelle instance : retirés de la mémoire locale.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void listenForChanges() {
+        changes = vehicleCache.changedVehicles()
+                .doOnError(e -> {
+                    // Des messages ont pu être perdus : plus rien de local n'est sûr
+                    localVehicles.clear();
+                    log.warn("⚠️ Vehicle changes subscription lost: {}", e.getMessage());
+                })
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1)).maxBackoff(Duration.ofSeconds(30)))
+                .subscribe(localVehicles::remove);
+    }
+
+    @PreDestroy
+    public void stopListening() {
+        if (changes != null) {
+            changes.dispose();
+        }
+    }
+
+    @Override
+    public Mono<Vehicle> getVehicleById(UUID vehicleId) {
+        if (vehicleId == null) {
+            return delegate.getVehicleById(null);
+        }
+        CachedVehicle local = localVehicles.get(vehicleId);
+        if (local != null) {
+            localHits.increment();
+            return Mono.just(serve(vehicleId, local));
+        }
+        return vehicleCache.findVehicleById(vehicleId)
+                .onErrorResume(e -> {
+                    log.warn("⚠️ Vehicle cache read failed for {}: {}", vehicleId, e.getMessage());
+                    return Mono.empty();
+                })
+                .map(cached -> {
+                    redisHits.increment();
+                    localVehicles.put(vehicleId, cached);
+                    return serve(vehicleId, cached);
+                })
+                .switchIfEmpty(Mono.defer(() -> {
+                    misses.increment();
+                    return load(vehicleId);
+                }));
+    }
+
+    @Override
+    public Mono<Vehicle> createVehicle(Vehicle vehicle) {
+        // Write-through : le véhicule créé est immédiatement lisible en cache
+        return delegate.createVehicle(vehicle)
+                .flatMap(created -> store(created).thenReturn(created));
+    }
+
+    @Override
+    public Mono<Vehicle> patchVehicle(UUID vehicleId, Vehicle partialUpdate) {
+        return refreshAfterWrite(vehicleId, delegate.patchVehicle(vehicleId, partialUpdate));
+    }
+
+    @Override
+    public Mono<Vehicle> uploadRegistrationDocument(UUID vehicleId, FilePart file) {
+        return refreshAfterWrite(vehicleId, delegate.uploadRegistrationDocument(vehicleId, file));
+    }
+
+    @Override
+    public Mono<Vehicle> uploadSerialDocument(UUID vehicleId, FilePart file) {
+        return refreshAfterWrite(vehicleId, delegate.uploadSerialDocument(vehicleId, file));
+    }
+
+    @Override
+    public Mono<String> uploadVehicleImage(UUID vehicleId, FilePart file) {
+        // La galerie fait partie de l'entrée : relue au prochain accès
+        return delegate.uploadVehicleImage(vehicleId, file)
+                .flatMap(path -> evict(vehicleId).thenReturn(path));
+    }
+
+    @Override
+    public Flux<String> getVehicleImages(UUID vehicleId) {
+        return delegate.getVehicleImages(vehicleId);
+    }
+
+    @Override
+    public Mono<Void> cacheVehicle(Vehicle vehicle) {
+        return store(vehicle).then();
+    }
+
+    /**
+     * Renvoie le véhicule en cache ; s'il n'est plus frais, lance son rechargement
+     * sans l'attendre.
+     */
+    private Vehicle serve(UUID vehicleId, CachedVehicle cached) {
+        if (System.currentTimeMillis() - cached.cachedAtMillis() > freshMillis) {
+            staleHits.increment();
+            load(vehicleId).subscribe(
+                    vehicle -> log.debug("🔄 Vehicle {} revalidated", vehicleId),
+                    e -> log.warn("⚠️ Vehicle {} revalidation failed: {}", vehicleId, e.getMessage()));
+        }
+        return cached.vehicle();
+    }
+
+    private Mono<Vehicle> load(UUID vehicleId) {
+        return inFlight.computeIfAbsent(vehicleId, id -> delegate.getVehicleById(id)
+                .flatMap(vehicle -> store(vehicle).thenReturn(vehicle))
+                .doFinally(signal -> inFlight.remove(id))
+                .cache());
+    }
+
+    // En cas d'échec, l'écriture a pu être appliquée à distance : l'entrée est retirée
+    private Mono<Vehicle> refreshAfterWrite(UUID vehicleId, Mono<Vehicle> write) {
+        return write
+                .flatMap(vehicle -> store(vehicle).then(announceChange(vehicleId)).thenReturn(vehicle))
+                .onErrorResume(e -> evict(vehicleId).then(Mono.error(e)));
+    }
+
+    private Mono<Boolean> store(Vehicle vehicle) {
+        CachedVehicle cached = new CachedVehicle(vehicle, System.currentTimeMillis());
+        localVehicles.put(vehicle.id(), cached);
+        return vehicleCache.saveInCache(vehicle)
+                .onErrorResume(e -> {
+                    log.warn("⚠️ Failed to cache vehicle {}: {}", vehicle.id(), e.getMessage());
+                    return Mono.just(false);
+                });
+    }
+
+    private Mono<Void> evict(UUID vehicleId) {
+        localVehicles.remove(vehicleId);
+        return vehicleCache.evictVehicle(vehicleId)
+                .onErrorResume(e -> {
+                    log.warn("⚠️ Vehicle cache eviction failed for {}: {}", vehicleId, e.getMessage());
+                    return Mono.empty();
+                })
+                .then(announceChange(vehicleId));
+    }
+
+    // L'instance qui écrit reçoit aussi le message : sa prochaine lecture passe par Redis
+    private Mono<Void> announceChange(UUID vehicleId) {
+        return vehicleCache.publishVehicleChanged(vehicleId)
+                .onErrorResume(e -> {
+                    log.warn("⚠️ Failed to announce change of vehicle {}: {}", vehicleId, e.getMessage());
+                    return Mono.empty();
+                });
+    }
+}
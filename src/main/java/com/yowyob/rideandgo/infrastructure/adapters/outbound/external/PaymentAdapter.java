@@ -6,9 +6,12 @@ import com.yowyob.rideandgo.domain.ports.out.PaymentPort;
 import com.yowyob.rideandgo.infrastructure.adapters.outbound.external.client.PaymentApiClient;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import java.util.Collection;
 import java.util.UUID;
 
 @Slf4j
@@ -17,6 +20,10 @@ import java.util.UUID;
 public class PaymentAdapter implements PaymentPort {
     private final PaymentApiClient client;
 
+    // Le service de paiement n'expose pas de lecture groupée : appels parallèles bornés
+    @Value("${application.payment.batch-concurrency:8}")
+    private int batchConcurrency;
+
     @Override
     public Mono<Wallet> createWallet(UUID ownerId, String ownerName) {
         log.info("💳 Creating wallet for driver {} ({})", ownerName, ownerId);
@@ -38,6 +45,17 @@ public class PaymentAdapter implements PaymentPort {
                 });
     }
 
+    @Override
+    public Flux<Wallet> getWalletsByOwnerIds(Collection<UUID> ownerIds) {
+        return Flux.fromIterable(ownerIds)
+                .flatMap(ownerId -> client.getWalletByOwnerId(ownerId.toString())
+                        .map(this::mapToDomain)
+                        .onErrorResume(e -> {
+                            log.warn("⚠️ Wallet lookup failed for owner {}: {}", ownerId, e.getMessage());
+                            return Mono.empty();
+                        }), batchConcurrency);
+    }
+
     @Override
     public Mono<Void> processPayment(UUID walletId, double offerPrice) {
         log.info("💸 Creating Payment Transaction for offer price: {} on wallet {}", offerPrice, walletId);
@@ -0,0 +1,139 @@
+package com.yowyob.rideandgo.infrastructure.adapters.outbound.persistence;
+
+import com.yowyob.rideandgo.domain.model.Offer;
+import com.yowyob.rideandgo.domain.ports.out.OfferCachePort;
+import com.yowyob.rideandgo.domain.ports.out.OfferRepositoryPort;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.NoTransactionException;
+import org.springframework.transaction.reactive.TransactionSynchronization;
+import org.springframework.transaction.reactive.TransactionSynchronizationManager;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.UUID;
+
+/**
+ * Lecture des offres par id via le cache Redis (read-through), devant
+ * {@link OfferR2dbcAdapter}.
+ * <p>
+ * Toute écriture incrémente la version de l'offre ; les lectures ne servent que des
+ * entrées à la version courante. Si l'écriture a lieu dans une transaction plus
+ * large, l'invalidation est refaite après sa fin : une lecture faite entre-temps
+ * (donc de l'état d'avant commit) ne reste pas en cache.
+ */
+@Slf4j
+@Primary
+@Component
+public class CachedOfferRepositoryAdapter implements OfferRepositoryPort {
+
+    private final OfferR2dbcAdapter delegate;
+    private final OfferCachePort cache;
+
+    private final Counter hits;
+    private final Counter misses;
+
+    public CachedOfferRepositoryAdapter(OfferR2dbcAdapter delegate, OfferCachePort cache,
+            MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.cache = cache;
+        this.hits = Counter.builder("rideandgo.offer.cache")
+                .description("Lectures d'offre par id")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.misses = Counter.builder("rideandgo.offer.cache")
+                .description("Lectures d'offre par id")
+                .tag("result", "miss")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Mono<Offer> findById(UUID offerId) {
+        return cache.findOfferById(offerId)
+                .onErrorResume(e -> {
+                    log.warn("⚠️ Offer cache read failed for {}: {}", offerId, e.getMessage());
+                    return Mono.empty();
+                })
+                .doOnNext(offer -> hits.increment())
+                .switchIfEmpty(Mono.defer(() -> {
+                    misses.increment();
+                    // Version lue avant la base : une écriture concurrente rendra l'entrée périmée
+                    return cache.getOfferVersion(offerId)
+                            .onErrorReturn(-1L)
+                            .flatMap(version -> delegate.findById(offerId)
+                                    .flatMap(offer -> version < 0 ? Mono.just(offer)
+                                            : cache.saveInCache(offer, version)
+                                                    .onErrorReturn(false)
+                                                    .thenReturn(offer)));
+                }));
+    }
+
+    @Override
+    public Mono<Offer> save(Offer offer) {
+        return delegate.save(offer)
+                .flatMap(saved -> invalidateAfterWrite(saved.id()).thenReturn(saved));
+    }
+
+    @Override
+    public Mono<Boolean> delete(Offer offer) {
+        return delegate.delete(offer)
+                .flatMap(deleted -> invalidateAfterWrite(offer.id()).thenReturn(deleted));
+    }
+
+    @Override
+    public Mono<Boolean> exists(Offer offer) {
+        return delegate.exists(offer);
+    }
+
+    @Override
+    public Flux<Offer> findAll() {
+        return delegate.findAll();
+    }
+
+    @Override
+    public Flux<Offer> findLatestPending(int limit, OfferCursor after) {
+        return delegate.findLatestPending(limit, after);
+    }
+
+    @Override
+    public Flux<Offer> findAllByIds(Collection<UUID> offerIds) {
+        return delegate.findAllByIds(offerIds);
+    }
+
+    @Override
+    public Flux<Offer> cancelOpenOffers(Collection<UUID> offerIds) {
+        return delegate.cancelOpenOffers(offerIds)
+                .concatMap(cancelled -> invalidateAfterWrite(cancelled.id()).thenReturn(cancelled));
+    }
+
+    @Override
+    public Flux<Offer> findPage(OfferFilter filter, OfferCursor after, int limit) {
+        return delegate.findPage(filter, after, limit);
+    }
+
+    private Mono<Void> invalidateAfterWrite(UUID offerId) {
+        Mono<Void> invalidate = Mono.defer(() -> cache.invalidateOffer(offerId))
+                .then()
+                .onErrorResume(e -> {
+                    log.warn("⚠️ Offer cache invalidation failed for {}: {}", offerId, e.getMessage());
+                    return Mono.empty();
+                });
+
+        Mono<Void> afterOuterTransaction = TransactionSynchronizationManager.forCurrentTransaction()
+                .filter(TransactionSynchronizationManager::isSynchronizationActive)
+                .doOnNext(tsm -> tsm.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public Mono<Void> afterCompletion(int status) {
+                        return invalidate;
+                    }
+                }))
+                .onErrorResume(NoTransactionException.class, e -> Mono.empty())
+                .then();
+
+        return afterOuterTransaction.then(invalidate);
+    }
+}
@@ -2,14 +2,17 @@ package com.yowyob.rideandgo.infrastructure.adapters.outbound.persistence;
 
 import com.yowyob.rideandgo.domain.exception.DriverProfileNotValidatedException;
 import com.yowyob.rideandgo.domain.model.Driver;
+import com.yowyob.rideandgo.domain.ports.out.DriverEligibilityCachePort;
 import com.yowyob.rideandgo.domain.ports.out.DriverRepositoryPort;
 import com.yowyob.rideandgo.infrastructure.adapters.outbound.persistence.entity.DriverEntity;
 import com.yowyob.rideandgo.infrastructure.adapters.outbound.persistence.repository.DriverR2dbcRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.r2dbc.core.DatabaseClient;
 import org.springframework.stereotype.Component;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import java.util.Collection;
 import java.util.UUID;
 
 @Slf4j
@@ -17,6 +20,8 @@ import java.util.UUID;
 @RequiredArgsConstructor
 public class DriverR2dbcAdapter implements DriverRepositoryPort {
     private final DriverR2dbcRepository driverRepository;
+    private final DatabaseClient databaseClient;
+    private final DriverEligibilityCachePort eligibilityCache;
 
     @Override
     public Mono<Boolean> setOnlineStatus(UUID driverId, boolean isOnline) {
@@ -28,7 +33,7 @@ public class DriverR2dbcAdapter implements DriverRepositoryPort {
                     }
                     entity.setOnline(isOnline);
                     entity.setNewEntity(false);
-                    return driverRepository.save(entity).thenReturn(true);
+                    return driverRepository.save(entity).flatMap(this::syncEligibility).thenReturn(true);
                 });
     }
 
@@ -47,6 +52,7 @@ public class DriverR2dbcAdapter implements DriverRepositoryPort {
                     entity.setNewEntity(!exists);
                     return driverRepository.save(entity);
                 })
+                .flatMap(this::syncEligibility)
                 .map(this::mapToDomain);
     }
 
@@ -76,6 +82,7 @@ public class DriverR2dbcAdapter implements DriverRepositoryPort {
                     newEntity.setNewEntity(true);
                     return driverRepository.save(newEntity);
                 }))
+                .flatMap(this::syncEligibility)
                 .map(this::mapToDomain);
     }
 
@@ -87,6 +94,7 @@ public class DriverR2dbcAdapter implements DriverRepositoryPort {
                     entity.setNewEntity(false);
                     return driverRepository.save(entity);
                 })
+                .flatMap(this::syncEligibility)
                 .map(this::mapToDomain);
     }
 
@@ -95,6 +103,75 @@ public class DriverR2dbcAdapter implements DriverRepositoryPort {
         return driverRepository.findByIsProfileValidatedFalse().map(this::mapToDomain);
     }
 
+    @Override
+    public Flux<EligibleDriver> findEligibleDrivers(Collection<UUID> candidateIds) {
+        if (candidateIds.isEmpty()) {
+            return Flux.empty();
+        }
+        return databaseClient.sql("""
+                    SELECT d.id, u.email_address, d.rating, d.total_reviews_count
+                    FROM drivers d
+                    JOIN users u ON d.id = u.id
+                    WHERE d.id = ANY(:ids)
+                      AND d.is_online = true
+                      AND d.is_profile_validated = true
+                """)
+                .bind("ids", candidateIds.toArray(new UUID[0]))
+                .map((row, meta) -> new EligibleDriver(
+                        row.get("id", UUID.class),
+                        row.get("email_address", String.class),
+                        row.get("rating", Double.class),
+                        row.get("total_reviews_count", Integer.class)))
+                .all();
+    }
+
+    @Override
+    public Flux<BidderProfile> findBidderProfiles(Collection<UUID> driverIds) {
+        if (driverIds.isEmpty()) {
+            return Flux.empty();
+        }
+        return databaseClient.sql("""
+                    SELECT d.id, u.first_name, u.last_name, u.phone_number, u.photo_uri, d.vehicle_id
+                    FROM drivers d
+                    JOIN users u ON d.id = u.id
+                    WHERE d.id = ANY(:ids)
+                """)
+                .bind("ids", driverIds.toArray(new UUID[0]))
+                .map((row, meta) -> new BidderProfile(
+                        row.get("id", UUID.class),
+                        row.get("first_name", String.class),
+                        row.get("last_name", String.class),
+                        row.get("phone_number", String.class),
+                        row.get("photo_uri", String.class),
+                        row.get("vehicle_id", UUID.class)))
+                .all();
+    }
+
+    @Override
+    public Flux<UUID> findAllEligibleDriverIds() {
+        return databaseClient.sql("""
+                    SELECT id FROM drivers
+                    WHERE is_online = true
+                      AND is_profile_validated = true
+                """)
+                .map((row, meta) -> row.get("id", UUID.class))
+                .all();
+    }
+
+    /**
+     * Répercute l'éligibilité de la ligne écrite dans le cache Redis. Un échec ne fait
+     * pas échouer l'écriture : la reconstruction périodique rattrape l'écart.
+     */
+    private Mono<DriverEntity> syncEligibility(DriverEntity entity) {
+        boolean eligible = entity.isOnline() && entity.isProfileValidated();
+        return eligibilityCache.setDriverEligible(entity.getId(), eligible)
+                .onErrorResume(e -> {
+                    log.warn("⚠️ Failed to sync eligibility of driver {}: {}", entity.getId(), e.getMessage());
+                    return Mono.empty();
+                })
+                .thenReturn(entity);
+    }
+
     private Driver mapToDomain(DriverEntity entity) {
         return Driver.builder()
                 .id(entity.getId())
@@ -8,13 +8,19 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.r2dbc.core.DatabaseClient;
 import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.UUID;
 
 @Component
 @RequiredArgsConstructor
 public class NotificationHistoryR2dbcAdapter implements NotificationHistoryRepositoryPort {
+    // Lignes par INSERT : le nombre de paramètres reste fixe (un tableau par colonne),
+    // le lot borne seulement la taille de la requête
+    private static final int SAVE_ALL_CHUNK_SIZE = 1000;
+
     private final NotificationR2dbcRepository repository;
     private final DatabaseClient databaseClient;
 
@@ -34,6 +40,60 @@ public class NotificationHistoryR2dbcAdapter implements NotificationHistoryRepos
         return repository.save(entity).then();
     }
 
+    @Override
+    public Mono<Void> saveAll(List<Notification> notifications) {
+        if (notifications.isEmpty()) {
+            return Mono.empty();
+        }
+        return Flux.range(0, (notifications.size() + SAVE_ALL_CHUNK_SIZE - 1) / SAVE_ALL_CHUNK_SIZE)
+                .concatMap(chunk -> insertChunk(notifications.subList(
+                        chunk * SAVE_ALL_CHUNK_SIZE,
+                        Math.min((chunk + 1) * SAVE_ALL_CHUNK_SIZE, notifications.size()))))
+                .then();
+    }
+
+    private Mono<Void> insertChunk(List<Notification> chunk) {
+        int n = chunk.size();
+        UUID[] ids = new UUID[n];
+        UUID[] userIds = new UUID[n];
+        String[] titles = new String[n];
+        String[] messages = new String[n];
+        String[] types = new String[n];
+        Boolean[] read = new Boolean[n];
+        LocalDateTime[] createdAt = new LocalDateTime[n];
+        String[] data = new String[n];
+
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < n; i++) {
+            Notification notification = chunk.get(i);
+            ids[i] = notification.id();
+            userIds[i] = notification.userId();
+            titles[i] = notification.title();
+            messages[i] = notification.message();
+            types[i] = notification.type();
+            read[i] = notification.isRead();
+            createdAt[i] = now;
+            data[i] = notification.dataJson();
+        }
+
+        // Un INSERT multi-lignes via unnest : 8 paramètres quel que soit le nombre de lignes
+        String sql = """
+                INSERT INTO notifications (id, user_id, title, message, type, is_read, created_at, data)
+                SELECT * FROM unnest(:ids::uuid[], :userIds::uuid[], :titles::varchar[], :messages::text[],
+                                     :types::varchar[], :read::boolean[], :createdAt::timestamp[], :data::text[])
+                """;
+        return databaseClient.sql(sql)
+                .bind("ids", ids)
+                .bind("userIds", userIds)
+                .bind("titles", titles)
+                .bind("messages", messages)
+                .bind("types", types)
+                .bind("read", read)
+                .bind("createdAt", createdAt)
+                .bind("data", data)
+                .then();
+    }
+
     @Override
     public Mono<PagedResult<Notification>> getUserNotifications(UUID userId, int page, int size) {
         return repository.countByUserId(userId)
@@ -1,6 +1,5 @@
 package com.yowyob.rideandgo.infrastructure.adapters.outbound.persistence;
 
-import com.yowyob.rideandgo.application.utils.Utils;
 import com.yowyob.rideandgo.domain.model.Bid;
 import com.yowyob.rideandgo.domain.model.Offer;
 import com.yowyob.rideandgo.domain.model.enums.OfferState;
@@ -10,15 +9,23 @@ import com.yowyob.rideandgo.infrastructure.adapters.outbound.persistence.entity.
 import com.yowyob.rideandgo.infrastructure.adapters.outbound.persistence.repository.OfferAgreementR2dbcRepository;
 import com.yowyob.rideandgo.infrastructure.adapters.outbound.persistence.repository.OfferR2dbcRepository;
 import com.yowyob.rideandgo.infrastructure.mappers.OfferMapper;
+import io.r2dbc.spi.Row;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.r2dbc.core.DatabaseClient.GenericExecuteSpec;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
 import java.util.UUID;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -29,72 +36,224 @@ public class OfferR2dbcAdapter implements OfferRepositoryPort {
     private final OfferAgreementR2dbcRepository offerAgreementRepository;
     private final OfferR2dbcRepository offerRepository;
     private final OfferMapper offerMapper;
+    private final DatabaseClient databaseClient;
 
+    // Upsert de l'offre : l'état persisté revient par RETURNING, sans relecture
+    private static final String UPSERT_OFFER_SQL = """
+            INSERT INTO offers (id, passenger_id, selected_driver_id, start_point, start_lat, start_lon,
+                                end_point, end_lat, end_lon, price, state, passenger_phone, departure_time,
+                                created_at, updated_at)
+            VALUES (:id, :passengerId, :selectedDriverId, :startPoint, :startLat, :startLon,
+                    :endPoint, :endLat, :endLon, :price, CAST(:state AS offer_state_enum), :passengerPhone,
+                    :departureTime, NOW(), NOW())
+            ON CONFLICT (id) DO UPDATE SET
+                passenger_id = EXCLUDED.passenger_id,
+                selected_driver_id = EXCLUDED.selected_driver_id,
+                start_point = EXCLUDED.start_point,
+                start_lat = EXCLUDED.start_lat,
+                start_lon = EXCLUDED.start_lon,
+                end_point = EXCLUDED.end_point,
+                end_lat = EXCLUDED.end_lat,
+                end_lon = EXCLUDED.end_lon,
+                price = EXCLUDED.price,
+                state = EXCLUDED.state,
+                passenger_phone = EXCLUDED.passenger_phone,
+                departure_time = EXCLUDED.departure_time,
+                updated_at = NOW()
+            RETURNING id, passenger_id, selected_driver_id, start_point, start_lat, start_lon,
+                      end_point, end_lat, end_lon, price, state::text AS state, passenger_phone,
+                      departure_time, created_at, updated_at
+            """;
+
+    // Candidatures manquantes insérées en une fois (uk_offer_driver écarte les
+    // doublons), puis liste complète : la requête principale ne voit pas les lignes
+    // insérées par le CTE, d'où l'UNION
+    private static final String UPSERT_BIDS_SQL = """
+            WITH inserted AS (
+                INSERT INTO offer_driver_linkages (offer_id, driver_id)
+                SELECT :offerId, unnest(:driverIds::uuid[])
+                ON CONFLICT (offer_id, driver_id) DO NOTHING
+                RETURNING driver_id
+            )
+            SELECT driver_id FROM offer_driver_linkages WHERE offer_id = :offerId
+            UNION
+            SELECT driver_id FROM inserted
+            """;
+
+    // Transition conditionnelle : une offre prise entre la lecture et l'écriture n'est
+    // pas écrasée, et seules les lignes modifiées reviennent
+    private static final String CANCEL_OPEN_OFFERS_SQL = """
+            UPDATE offers SET state = 'CANCELLED', updated_at = NOW()
+            WHERE id = ANY(:ids) AND state IN ('PENDING', 'BID_RECEIVED')
+            RETURNING id, passenger_id, selected_driver_id, start_point, start_lat, start_lon,
+                      end_point, end_lat, end_lon, price, state::text AS state, passenger_phone,
+                      departure_time, created_at, updated_at
+            """;
+
+    private static final int FIND_ALL_BATCH_SIZE = 500;
+
+    // Paquets d'une page admin : les premières offres partent pendant la lecture des
+    // suivantes (streaming NDJSON)
+    private static final int PAGE_CHUNK_SIZE = 20;
+
+    private static final String PAGE_SELECT_SQL = """
+            SELECT id, passenger_id, selected_driver_id, start_point, start_lat, start_lon,
+                   end_point, end_lat, end_lon, price, state::text AS state, passenger_phone,
+                   departure_time, created_at, updated_at
+            FROM offers
+            """;
+
+    /**
+     * Deux requêtes quel que soit le nombre de candidatures : upsert de l'offre, puis
+     * insertion groupée des candidatures qui renvoie la liste persistée.
+     */
     @Override
     @Transactional
     public Mono<Offer> save(Offer offer) {
-        log.info("💾 SAVE OFFER: ID={}, Bids Count={}", offer.id(),
-                (offer.bids() != null ? offer.bids().size() : "null"));
-
-        OfferEntity entity = offerMapper.toEntity(offer);
-
-        return offerRepository.existsById(offer.id())
-                .flatMap(exists -> {
-                    if (!exists)
-                        entity.setNewEntity(true);
-                    return offerRepository.save(entity);
-                })
-                .flatMap(savedOffer -> {
-                    if (offer.bids() == null || offer.bids().isEmpty()) {
-                        log.info("⚠️ No bids to save for offer {}", offer.id());
-                        return Mono.just(savedOffer);
-                    }
-
-                    return Flux.fromIterable(offer.bids())
-                            .flatMap(bid -> {
-                                log.debug("Processing bid for driver {}", bid.driverId());
-                                return offerAgreementRepository
-                                        .findByOfferIdAndDriverId(savedOffer.getId(), bid.driverId())
-                                        .doOnNext(
-                                                found -> log.debug("Bid already exists for driver {}", bid.driverId()))
-                                        .switchIfEmpty(
-                                                Mono.defer(() -> {
-                                                    log.info("➕ INSERTING BID: Driver {} -> Offer {}", bid.driverId(),
-                                                            savedOffer.getId());
-                                                    OfferAgreementEntity link = new OfferAgreementEntity();
-                                                    link.setId(Utils.generateUUID());
-                                                    link.setOfferId(savedOffer.getId());
-                                                    link.setDriverId(bid.driverId());
-                                                    link.asNew();
-                                                    return offerAgreementRepository.save(link)
-                                                            .doOnSuccess(
-                                                                    s -> log.info("✅ Inserted link ID: {}", s.getId()))
-                                                            .doOnError(e -> log.error("❌ Failed to insert link: {}",
-                                                                    e.getMessage()));
-                                                }));
-                            })
-                            .collectList() // Force l'exécution
-                            .map(links -> {
-                                log.info("🔄 Processed {} links", links.size());
-                                return savedOffer;
-                            });
-                })
-                .flatMap(savedOffer -> {
-                    // Force reload pour vérifier ce qui a été persisté
-                    return findById(savedOffer.getId())
-                            .doOnSuccess(o -> log.info("🔍 Reloaded Offer: Bids Count={}",
-                                    (o.bids() != null ? o.bids().size() : 0)));
-                });
+        UUID[] driverIds = offer.bids() == null ? new UUID[0]
+                : offer.bids().stream().map(Bid::driverId).distinct().toArray(UUID[]::new);
+        log.info("💾 SAVE OFFER: ID={}, Bids Count={}", offer.id(), driverIds.length);
+
+        GenericExecuteSpec upsert = databaseClient.sql(UPSERT_OFFER_SQL)
+                .bind("id", offer.id())
+                .bind("passengerId", offer.passengerId())
+                .bind("price", offer.price())
+                .bind("state", offer.state().name());
+        upsert = bindNullable(upsert, "selectedDriverId", offer.selectedDriverId(), UUID.class);
+        upsert = bindNullable(upsert, "startPoint", offer.startPoint(), String.class);
+        upsert = bindNullable(upsert, "startLat", offer.startLat(), Double.class);
+        upsert = bindNullable(upsert, "startLon", offer.startLon(), Double.class);
+        upsert = bindNullable(upsert, "endPoint", offer.endPoint(), String.class);
+        upsert = bindNullable(upsert, "endLat", offer.endLat(), Double.class);
+        upsert = bindNullable(upsert, "endLon", offer.endLon(), Double.class);
+        upsert = bindNullable(upsert, "passengerPhone", offer.passengerPhone(), String.class);
+        upsert = bindNullable(upsert, "departureTime", offer.departureTime(), String.class);
+
+        return upsert.map((row, meta) -> mapOfferRow(row))
+                .one()
+                .flatMap(entity -> databaseClient.sql(UPSERT_BIDS_SQL)
+                        .bind("offerId", entity.getId())
+                        .bind("driverIds", driverIds)
+                        .map((row, meta) -> row.get("driver_id", UUID.class))
+                        .all()
+                        .map(driverId -> Bid.builder().driverId(driverId).build())
+                        .collectList()
+                        .map(bids -> offerMapper.toDomain(entity).withBids(bids)));
+    }
+
+    private static GenericExecuteSpec bindNullable(GenericExecuteSpec spec, String name, Object value,
+            Class<?> type) {
+        return value != null ? spec.bind(name, value) : spec.bindNull(name, type);
+    }
+
+    private static OfferEntity mapOfferRow(Row row) {
+        OfferEntity entity = new OfferEntity();
+        entity.setId(row.get("id", UUID.class));
+        entity.setPassengerId(row.get("passenger_id", UUID.class));
+        entity.setSelectedDriverId(row.get("selected_driver_id", UUID.class));
+        entity.setStartPoint(row.get("start_point", String.class));
+        entity.setStartLat(row.get("start_lat", Double.class));
+        entity.setStartLon(row.get("start_lon", Double.class));
+        entity.setEndPoint(row.get("end_point", String.class));
+        entity.setEndLat(row.get("end_lat", Double.class));
+        entity.setEndLon(row.get("end_lon", Double.class));
+        Double price = row.get("price", Double.class);
+        entity.setPrice(price != null ? price : 0.0);
+        entity.setState(OfferState.valueOf(row.get("state", String.class)));
+        entity.setPassengerPhone(row.get("passenger_phone", String.class));
+        entity.setDepartureTime(row.get("departure_time", String.class));
+        entity.setCreatedDate(row.get("created_at", LocalDateTime.class));
+        entity.setLastModifiedDate(row.get("updated_at", LocalDateTime.class));
+        return entity;
     }
 
     @Override
-    public Flux<Offer> findLatestPending(int limit) {
-        return offerRepository.findAll()
-                .filter(o -> o.getState() == OfferState.PENDING || o.getState() == OfferState.BID_RECEIVED)
-                .sort((o1, o2) -> o2.getCreatedDate().compareTo(o1.getCreatedDate()))
-                .take(limit)
-                .flatMap(this::enrichOfferWithAgreements)
-                .map(this::mapToDomainManual);
+    public Flux<Offer> findLatestPending(int limit, OfferCursor after) {
+        Flux<OfferEntity> page = after == null
+                ? offerRepository.findLatestOpen(limit)
+                : offerRepository.findLatestOpenBefore(after.createdAt(), after.id(), limit);
+        return page
+                .collectList()
+                .flatMapMany(this::enrichOffersWithAgreements);
+    }
+
+    /**
+     * Requête construite selon les critères présents ; l'ordre (created_at, id) suit
+     * les index idx_offers_created / idx_offers_passenger_created. Les candidatures
+     * sont chargées par paquets de PAGE_CHUNK_SIZE offres, émis dès qu'ils sont
+     * prêts et dans l'ordre de la page.
+     */
+    @Override
+    public Flux<Offer> findPage(OfferFilter filter, OfferCursor after, int limit) {
+        OfferFilter criteria = filter != null ? filter : OfferFilter.none();
+        boolean byState = criteria.states() != null && !criteria.states().isEmpty();
+
+        StringBuilder sql = new StringBuilder(PAGE_SELECT_SQL).append(" WHERE TRUE");
+        if (byState) {
+            sql.append(" AND state = ANY(CAST(:states AS offer_state_enum[]))");
+        }
+        if (criteria.passengerId() != null) {
+            sql.append(" AND passenger_id = :passengerId");
+        }
+        if (criteria.createdFrom() != null) {
+            sql.append(" AND created_at >= :createdFrom");
+        }
+        if (criteria.createdTo() != null) {
+            sql.append(" AND created_at < :createdTo");
+        }
+        if (after != null) {
+            sql.append(" AND (created_at, id) < (:cursorCreatedAt, :cursorId)");
+        }
+        sql.append(" ORDER BY created_at DESC, id DESC LIMIT :limit");
+
+        GenericExecuteSpec query = databaseClient.sql(sql.toString()).bind("limit", limit);
+        if (byState) {
+            query = query.bind("states", criteria.states().stream().map(Enum::name).toArray(String[]::new));
+        }
+        if (criteria.passengerId() != null) {
+            query = query.bind("passengerId", criteria.passengerId());
+        }
+        if (criteria.createdFrom() != null) {
+            query = query.bind("createdFrom", criteria.createdFrom());
+        }
+        if (criteria.createdTo() != null) {
+            query = query.bind("createdTo", criteria.createdTo());
+        }
+        if (after != null) {
+            query = query.bind("cursorCreatedAt", after.createdAt()).bind("cursorId", after.id());
+        }
+
+        return query.map((row, meta) -> mapOfferRow(row))
+                .all()
+                .buffer(PAGE_CHUNK_SIZE)
+                .concatMap(this::enrichOffersWithAgreements);
+    }
+
+    @Override
+    public Flux<Offer> findAllByIds(Collection<UUID> offerIds) {
+        if (offerIds.isEmpty()) {
+            return Flux.empty();
+        }
+        // 1 requête pour les offres, 1 pour toutes leurs candidatures
+        return offerRepository.findAllByIdIn(offerIds.toArray(new UUID[0]))
+                .collectMap(OfferEntity::getId, Function.identity())
+                .flatMapMany(byId -> enrichOffersWithAgreements(offerIds.stream()
+                        .map(byId::get)
+                        .filter(Objects::nonNull)
+                        .toList()));
+    }
+
+    @Override
+    public Flux<Offer> cancelOpenOffers(Collection<UUID> offerIds) {
+        if (offerIds.isEmpty()) {
+            return Flux.empty();
+        }
+        return databaseClient.sql(CANCEL_OPEN_OFFERS_SQL)
+                .bind("ids", offerIds.toArray(new UUID[0]))
+                .map((row, meta) -> mapOfferRow(row))
+                .all()
+                .collectList()
+                .flatMapMany(this::enrichOffersWithAgreements);
     }
 
     @Override
@@ -106,9 +265,10 @@ public class OfferR2dbcAdapter implements OfferRepositoryPort {
 
     @Override
     public Flux<Offer> findAll() {
+        // Candidatures chargées par paquets d'offres plutôt qu'une requête par offre
         return offerRepository.findAll()
-                .flatMap(this::enrichOfferWithAgreements)
-                .map(this::mapToDomainManual);
+                .buffer(FIND_ALL_BATCH_SIZE)
+                .concatMap(this::enrichOffersWithAgreements);
     }
 
     private Mono<OfferEntity> enrichOfferWithAgreements(OfferEntity entity) {
@@ -123,6 +283,22 @@ public class OfferR2dbcAdapter implements OfferRepositoryPort {
                 });
     }
 
+    private Flux<Offer> enrichOffersWithAgreements(List<OfferEntity> entities) {
+        if (entities.isEmpty()) {
+            return Flux.empty();
+        }
+        UUID[] ids = entities.stream().map(OfferEntity::getId).toArray(UUID[]::new);
+        return offerAgreementRepository.findByOfferIdIn(ids)
+                .collectMultimap(OfferAgreementEntity::getOfferId)
+                .flatMapMany(agreementsByOffer -> Flux.fromIterable(entities)
+                        .map(entity -> {
+                            Collection<OfferAgreementEntity> agreements = agreementsByOffer.get(entity.getId());
+                            entity.setAgreements(agreements != null ? List.copyOf(agreements)
+                                    : Collections.emptyList());
+                            return mapToDomainManual(entity);
+                        }));
+    }
+
     private Offer mapToDomainManual(OfferEntity entity) {
         Offer domain = offerMapper.toDomain(entity);
         if (entity.getAgreements() != null && !entity.getAgreements().isEmpty()) {
@@ -1,6 +1,7 @@
 package com.yowyob.rideandgo.infrastructure.adapters.outbound.persistence.repository;
 
 import com.yowyob.rideandgo.infrastructure.adapters.outbound.persistence.entity.OfferAgreementEntity;
+import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -18,4 +19,10 @@ public interface OfferAgreementR2dbcRepository extends ReactiveCrudRepository<Of
      * Lists all applications for a given offer.
      */
     Flux<OfferAgreementEntity> findByOfferId(UUID offerId);
+
+    /**
+     * Lists the applications of several offers in one query.
+     */
+    @Query("SELECT * FROM offer_driver_linkages WHERE offer_id = ANY(:offerIds)")
+    Flux<OfferAgreementEntity> findByOfferIdIn(UUID[] offerIds);
 }
\ No newline at end of file
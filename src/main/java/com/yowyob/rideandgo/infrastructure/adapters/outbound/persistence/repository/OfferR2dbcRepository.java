@@ -1,9 +1,41 @@
 package com.yowyob.rideandgo.infrastructure.adapters.outbound.persistence.repository;
 
 import com.yowyob.rideandgo.infrastructure.adapters.outbound.persistence.entity.OfferEntity;
+import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import reactor.core.publisher.Flux;
 
+import java.time.LocalDateTime;
 import java.util.UUID;
 
 public interface OfferR2dbcRepository extends ReactiveCrudRepository<OfferEntity, UUID> {
+
+    /**
+     * Loads several offers in one query (a single array parameter, whatever the count).
+     */
+    @Query("SELECT * FROM offers WHERE id = ANY(:ids)")
+    Flux<OfferEntity> findAllByIdIn(UUID[] ids);
+
+    /**
+     * Most recent open offers, served by the partial index idx_offers_open_created.
+     */
+    @Query("""
+                SELECT * FROM offers
+                WHERE state IN ('PENDING', 'BID_RECEIVED')
+                ORDER BY created_at DESC, id DESC
+                LIMIT :limit
+            """)
+    Flux<OfferEntity> findLatestOpen(int limit);
+
+    /**
+     * Next page of open offers, strictly after the (createdAt, id) cursor.
+     */
+    @Query("""
+                SELECT * FROM offers
+                WHERE state IN ('PENDING', 'BID_RECEIVED')
+                  AND (created_at, id) < (:createdAt, :id)
+                ORDER BY created_at DESC, id DESC
+                LIMIT :limit
+            """)
+    Flux<OfferEntity> findLatestOpenBefore(LocalDateTime createdAt, UUID id, int limit);
 }
@@ -11,6 +11,7 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
 import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
 import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.listener.ReactiveRedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
@@ -74,4 +75,14 @@ public class RedisConfig {
 
                 return new ReactiveRedisTemplate<>(factory, context);
         }
+
+        /**
+         * Conteneur pub/sub partagé : tous les abonnements (flux de positions, réplique
+         * Geo locale...) passent par une seule connexion Redis.
+         */
+        @Bean(destroyMethod = "destroy")
+        public ReactiveRedisMessageListenerContainer reactiveRedisMessageListenerContainer(
+                        ReactiveRedisConnectionFactory factory) {
+                return new ReactiveRedisMessageListenerContainer(factory);
+        }
 }
\ No newline at end of file
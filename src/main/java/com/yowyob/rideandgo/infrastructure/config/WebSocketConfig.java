@@ -0,0 +1,22 @@
+package com.yowyob.rideandgo.infrastructure.config;
+
+import com.yowyob.rideandgo.infrastructure.adapters.inbound.websocket.LocationWebSocketHandler;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.reactive.HandlerMapping;
+import org.springframework.web.reactive.handler.SimpleUrlHandlerMapping;
+
+import java.util.Map;
+
+@Configuration
+public class WebSocketConfig {
+
+    /**
+     * Expose le flux GPS en WebSocket. Le handshake passe par la chaîne de sécurité
+     * (JWT en header Authorization ou en paramètre access_token).
+     */
+    @Bean
+    public HandlerMapping webSocketHandlerMapping(LocationWebSocketHandler locationWebSocketHandler) {
+        return new SimpleUrlHandlerMapping(Map.of("/ws/location", locationWebSocketHandler), -1);
+    }
+}
@@ -1,6 +1,7 @@
 package com.yowyob.rideandgo.infrastructure.mappers;
 
 import com.yowyob.rideandgo.domain.model.Offer;
+import com.yowyob.rideandgo.domain.ports.out.OfferRepositoryPort;
 import com.yowyob.rideandgo.infrastructure.adapters.inbound.rest.dto.CreateOfferRequest;
 import com.yowyob.rideandgo.infrastructure.adapters.inbound.rest.dto.OfferResponse;
 import com.yowyob.rideandgo.infrastructure.adapters.outbound.persistence.entity.OfferEntity;
@@ -8,11 +9,12 @@ import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 import org.mapstruct.ReportingPolicy;
 
-@Mapper(componentModel = "spring", unmappedTargetPolicy = ReportingPolicy.IGNORE)
+@Mapper(componentModel = "spring", unmappedTargetPolicy = ReportingPolicy.IGNORE, imports = OfferRepositoryPort.class)
 public interface OfferMapper {
 
     @Mapping(target = "bids", ignore = true)
     @Mapping(target = "version", ignore = true)
+    @Mapping(target = "createdAt", source = "createdDate")
     Offer toDomain(OfferEntity entity);
 
     @Mapping(target = "id", ignore = true)
@@ -23,8 +25,10 @@ public interface OfferMapper {
     @Mapping(target = "selectedDriverId", ignore = true)
     Offer toDomain(CreateOfferRequest request);
 
+    @Mapping(target = "cursor", expression = "java(domain.createdAt() != null ? new OfferRepositoryPort.OfferCursor(domain.createdAt(), domain.id()).token() : null)")
     OfferResponse toResponse(Offer domain);
 
     @Mapping(target = "agreements", ignore = true)
+    @Mapping(target = "createdDate", source = "createdAt")
     OfferEntity toEntity(Offer domain);
 }
\ No newline at end of file
@@ -19,6 +19,10 @@ import reactor.core.publisher.Mono;
 @RequiredArgsConstructor
 public class SecurityContextRepository implements ServerSecurityContextRepository {
 
+    private static final String WEBSOCKET_PATH_PREFIX = "/ws/";
+    private static final String EVENT_STREAM_PATH_SUFFIX = "/stream";
+    private static final String QUERY_TOKEN_PARAM = "access_token";
+
     private final JwtAuthenticationManager authenticationManager;
 
     @Override
@@ -28,13 +32,17 @@ public class SecurityContextRepository implements ServerSecurityContextRepositor
 
     /**
      * Loads the security context by extracting the "Bearer" token from HTTP headers.
+     * WebSocket handshakes (/ws/**) and Server-Sent Events streams (.../stream)
+     * may also pass it as an "access_token" query parameter, since browsers cannot
+     * set headers on a WebSocket upgrade or an EventSource.
      */
     @Override
     public Mono<SecurityContext> load(ServerWebExchange exchange) {
         return Mono.justOrEmpty(exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION))
                 .filter(authHeader -> authHeader.startsWith("Bearer "))
-                .flatMap(authHeader -> {
-                    String authToken = authHeader.substring(7);
+                .map(authHeader -> authHeader.substring(7))
+                .switchIfEmpty(Mono.defer(() -> queryToken(exchange)))
+                .flatMap(authToken -> {
                     // Create an unauthenticated token object
                     Authentication auth = new UsernamePasswordAuthenticationToken(authToken, authToken);
                     // Delegate validation to the AuthenticationManager
@@ -42,4 +50,12 @@ public class SecurityContextRepository implements ServerSecurityContextRepositor
                             .map(SecurityContextImpl::new);
                 });
     }
+
+    private Mono<String> queryToken(ServerWebExchange exchange) {
+        String path = exchange.getRequest().getPath().value();
+        if (!path.startsWith(WEBSOCKET_PATH_PREFIX) && !path.endsWith(EVENT_STREAM_PATH_SUFFIX)) {
+            return Mono.empty();
+        }
+        return Mono.justOrEmpty(exchange.getRequest().getQueryParams().getFirst(QUERY_TOKEN_PARAM));
+    }
 }
\ No newline at end of file
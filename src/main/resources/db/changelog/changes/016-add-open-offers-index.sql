@@ -0,0 +1,12 @@
+-- liquibase formatted sql
+-- changeset yowyob:016-add-open-offers-index
+-- comment: Index partiel des offres ouvertes, pour lister les plus récentes (pagination par curseur created_at, id)
+
+-- Les offres écrites sans date de création seraient triées en tête (NULLS FIRST en DESC)
+UPDATE ride_and_go.offers
+SET created_at = COALESCE(updated_at, NOW())
+WHERE created_at IS NULL;
+
+CREATE INDEX IF NOT EXISTS idx_offers_open_created
+ON ride_and_go.offers (created_at DESC, id DESC)
+WHERE state IN ('PENDING', 'BID_RECEIVED');
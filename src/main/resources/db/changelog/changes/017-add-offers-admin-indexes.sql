@@ -0,0 +1,9 @@
+-- liquibase formatted sql
+-- changeset yowyob:017-add-offers-admin-indexes
+-- comment: Index de la liste admin des offres (pagination par curseur created_at, id, filtre passager)
+
+CREATE INDEX IF NOT EXISTS idx_offers_created
+ON ride_and_go.offers (created_at DESC, id DESC);
+
+CREATE INDEX IF NOT EXISTS idx_offers_passenger_created
+ON ride_and_go.offers (passenger_id, created_at DESC, id DESC);
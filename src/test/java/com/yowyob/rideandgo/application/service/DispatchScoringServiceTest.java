@@ -0,0 +1,143 @@
+package com.yowyob.rideandgo.application.service;
+
+import com.yowyob.rideandgo.application.service.DispatchScoringService.Candidate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DispatchScoringServiceTest {
+
+    private DispatchScoringService scoring;
+
+    @BeforeEach
+    void setUp() {
+        // Poids par défaut de application.yml
+        scoring = new DispatchScoringService(0.5, 0.2, 0.05, 0.15, 0.1, 100, 3600);
+    }
+
+    private static Candidate candidate(double distanceKm, double rating, int totalReviews) {
+        return new Candidate(UUID.randomUUID(), distanceKm, rating, totalReviews);
+    }
+
+    @Test
+    void topKReturnsBestScoresInDescendingOrder() {
+        double[] score = {0.3, 0.9, 0.1, 0.7, 0.5, 0.8};
+        int[] top = new int[3];
+
+        int count = DispatchScoringService.topK(score, score.length, top);
+
+        assertThat(count).isEqualTo(3);
+        assertThat(top).containsExactly(1, 5, 3);
+    }
+
+    @Test
+    void topKWithKLargerThanNReturnsAllSorted() {
+        double[] score = {0.2, 0.6, 0.4};
+        int[] top = new int[10];
+
+        int count = DispatchScoringService.topK(score, score.length, top);
+
+        assertThat(count).isEqualTo(3);
+        assertThat(Arrays.copyOf(top, count)).containsExactly(1, 2, 0);
+    }
+
+    @Test
+    void topKOnlyLooksAtTheFirstNScores() {
+        double[] score = {0.2, 0.6, 0.4, 0.99};
+        int[] top = new int[2];
+
+        int count = DispatchScoringService.topK(score, 3, top);
+
+        assertThat(count).isEqualTo(2);
+        assertThat(top).containsExactly(1, 2);
+    }
+
+    @Test
+    void topKMatchesAFullSortOnRandomScores() {
+        Random random = new Random(42);
+        for (int round = 0; round < 50; round++) {
+            int n = 1 + random.nextInt(200);
+            double[] score = random.doubles(n).toArray();
+            int[] top = new int[1 + random.nextInt(20)];
+
+            int count = DispatchScoringService.topK(score, n, top);
+
+            int[] expected = IntStream.range(0, n).boxed()
+                    .sorted(Comparator.comparingDouble((Integer i) -> score[i]).reversed())
+                    .limit(count)
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+            assertThat(Arrays.copyOf(top, count)).containsExactly(expected);
+        }
+    }
+
+    @Test
+    void closerDriverRanksFirstWhenEverythingElseIsEqual() {
+        Candidate far = candidate(4.0, 4.5, 20);
+        Candidate near = candidate(0.5, 4.5, 20);
+        Candidate middle = candidate(2.0, 4.5, 20);
+
+        assertThat(scoring.rank(List.of(far, near, middle), 3))
+                .containsExactly(near.driverId(), middle.driverId(), far.driverId());
+    }
+
+    @Test
+    void betterRatedDriverWinsAtSameDistance() {
+        Candidate average = candidate(1.0, 3.0, 50);
+        Candidate excellent = candidate(1.0, 5.0, 50);
+
+        assertThat(scoring.rank(List.of(average, excellent), 2))
+                .containsExactly(excellent.driverId(), average.driverId());
+    }
+
+    @Test
+    void recentlyAssignedDriverIsRankedAfterAnIdleOne() {
+        Candidate busy = candidate(1.0, 4.5, 20);
+        Candidate idle = candidate(1.0, 4.5, 20);
+        scoring.recordAssigned(busy.driverId());
+
+        assertThat(scoring.rank(List.of(busy, idle), 2))
+                .containsExactly(idle.driverId(), busy.driverId());
+    }
+
+    @Test
+    void driverWhoIgnoresOffersIsRankedAfterOneWhoAccepts() {
+        Candidate ignores = candidate(1.0, 4.5, 20);
+        Candidate accepts = candidate(1.0, 4.5, 20);
+        for (int i = 0; i < 10; i++) {
+            scoring.recordOffered(List.of(ignores.driverId(), accepts.driverId()));
+            scoring.recordAccepted(accepts.driverId());
+        }
+
+        assertThat(scoring.rank(List.of(ignores, accepts), 2))
+                .containsExactly(accepts.driverId(), ignores.driverId());
+    }
+
+    @Test
+    void rankIsLimited() {
+        List<Candidate> candidates = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            candidates.add(candidate(i + 1, 4.0, 10));
+        }
+
+        List<UUID> ranked = scoring.rank(candidates, 5);
+
+        assertThat(ranked).containsExactly(candidates.subList(0, 5).stream()
+                .map(Candidate::driverId).toArray(UUID[]::new));
+    }
+
+    @Test
+    void emptyInputOrZeroLimitGivesNothing() {
+        assertThat(scoring.rank(List.of(), 5)).isEmpty();
+        assertThat(scoring.rank(List.of(candidate(1.0, 4.0, 1)), 0)).isEmpty();
+    }
+}
@@ -0,0 +1,131 @@
+package com.yowyob.rideandgo.application.service;
+
+import com.yowyob.rideandgo.domain.ports.out.LocationCachePort.LocationFix;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GpsFixFilterServiceTest {
+
+    // ~1 m en latitude
+    private static final double METER = 1.0 / 111_195.0;
+    private static final double LAT = 3.8480;
+    private static final double LON = 11.5021;
+    private static final long T0 = 1_700_000_000L;
+
+    private GpsFixFilterService filter;
+    private UUID actorId;
+
+    @BeforeEach
+    void setUp() {
+        filter = new GpsFixFilterService(new TrackingCalculatorService(), new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(filter, "enabled", true);
+        ReflectionTestUtils.setField(filter, "minDistanceMeters", 5.0);
+        ReflectionTestUtils.setField(filter, "maxSpeedKmh", 200.0);
+        ReflectionTestUtils.setField(filter, "maxSilenceSeconds", 30L);
+        ReflectionTestUtils.setField(filter, "maxConsecutiveSpikes", 3);
+        actorId = UUID.randomUUID();
+    }
+
+    private static LocationFix fix(double metersNorth, long secondsAfterStart) {
+        return new LocationFix(LAT + metersNorth * METER, LON, T0 + secondsAfterStart);
+    }
+
+    private boolean accepted(LocationFix fix) {
+        return !filter.filter(actorId, List.of(fix)).isEmpty();
+    }
+
+    @Test
+    void firstFixIsAccepted() {
+        assertThat(accepted(fix(0, 0))).isTrue();
+    }
+
+    @Test
+    void jitterBelowMinDistanceIsDropped() {
+        accepted(fix(0, 0));
+
+        assertThat(accepted(fix(2, 5))).isFalse();
+    }
+
+    @Test
+    void stationaryFixIsAcceptedAfterSilence() {
+        accepted(fix(0, 0));
+
+        assertThat(accepted(fix(2, 30))).isTrue();
+    }
+
+    @Test
+    void plausibleMovementIsAccepted() {
+        accepted(fix(0, 0));
+
+        // 100 m en 10 s : 36 km/h
+        assertThat(accepted(fix(100, 10))).isTrue();
+    }
+
+    @Test
+    void teleportAfterSilenceIsDropped() {
+        accepted(fix(0, 0));
+
+        // 100 km en 60 s : 6000 km/h, le silence ne dispense pas du contrôle de vitesse
+        assertThat(accepted(fix(100_000, 60))).isFalse();
+    }
+
+    @Test
+    void sameSecondJumpIsDropped() {
+        accepted(fix(0, 0));
+
+        // 100 m dans la même seconde : comptés sur 1 s, soit 360 km/h
+        assertThat(accepted(fix(100, 0))).isFalse();
+    }
+
+    @Test
+    void longDrivePastSilenceIsAccepted() {
+        accepted(fix(0, 0));
+
+        // 5 km en 10 min : 30 km/h
+        assertThat(accepted(fix(5_000, 600))).isTrue();
+    }
+
+    @Test
+    void reAnchorsAfterConsecutiveSpikes() {
+        accepted(fix(0, 0));
+
+        // La référence était fausse : les fixes suivants sont tous à ~50 km
+        assertThat(accepted(fix(50_000, 1))).isFalse();
+        assertThat(accepted(fix(50_010, 2))).isFalse();
+        assertThat(accepted(fix(50_020, 3))).isTrue();
+        // Nouvelle référence : la suite est de nouveau acceptée normalement
+        assertThat(accepted(fix(50_120, 13))).isTrue();
+    }
+
+    @Test
+    void backfillOlderThanReferenceIsKept() {
+        accepted(fix(0, 100));
+
+        assertThat(accepted(fix(100_000, 50))).isTrue();
+        // La référence n'a pas bougé
+        assertThat(accepted(fix(2, 105))).isFalse();
+    }
+
+    @Test
+    void batchIsFilteredInOrder() {
+        List<LocationFix> kept = filter.filter(actorId, List.of(
+                fix(0, 0), fix(1, 1), fix(50, 6), fix(50_000, 7), fix(100, 11)));
+
+        assertThat(kept).containsExactly(fix(0, 0), fix(50, 6), fix(100, 11));
+    }
+
+    @Test
+    void disabledFilterKeepsEverything() {
+        ReflectionTestUtils.setField(filter, "enabled", false);
+        List<LocationFix> fixes = List.of(fix(0, 0), fix(100_000, 0));
+
+        assertThat(filter.filter(actorId, fixes)).isEqualTo(fixes);
+    }
+}
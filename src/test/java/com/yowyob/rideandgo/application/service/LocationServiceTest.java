@@ -0,0 +1,101 @@
+package com.yowyob.rideandgo.application.service;
+
+import com.yowyob.rideandgo.domain.ports.out.LocationCachePort;
+import com.yowyob.rideandgo.domain.ports.out.LocationCachePort.LocationFix;
+import com.yowyob.rideandgo.domain.ports.out.RideFeedPort;
+import com.yowyob.rideandgo.domain.ports.out.RideRepositoryPort;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class LocationServiceTest {
+
+    private static final double LAT = 3.8480;
+    private static final double LON = 11.5021;
+
+    private LocationCachePort locationCache;
+    private LocationService service;
+    private UUID actorId;
+
+    @BeforeEach
+    void setUp() {
+        locationCache = mock(LocationCachePort.class);
+        when(locationCache.saveLocations(any(), anyList())).thenReturn(Mono.just(true));
+
+        // Filtre GPS désactivé : seule la normalisation du lot est testée ici
+        GpsFixFilterService filter = new GpsFixFilterService(new TrackingCalculatorService(),
+                new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(filter, "enabled", false);
+
+        service = new LocationService(locationCache, mock(RideRepositoryPort.class), mock(RideFeedPort.class),
+                new TrackingCalculatorService(), filter);
+        ReflectionTestUtils.setField(service, "maxBatchSize", 500);
+        actorId = UUID.randomUUID();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<List<LocationFix>> savedBatches(int calls) {
+        ArgumentCaptor<List<LocationFix>> captor = ArgumentCaptor.forClass(List.class);
+        verify(locationCache, times(calls)).saveLocations(eq(actorId), captor.capture());
+        return captor.getAllValues();
+    }
+
+    @Test
+    void pastBatchKeepsItsTimestampsAndStaysOlderThanLive() {
+        long now = Instant.now().getEpochSecond();
+        service.ingestFixes(actorId, List.of(new LocationFix(LAT, LON, now))).block();
+
+        // Backfill envoyé à la reconnexion : 5 minutes de retard
+        long start = now - 300;
+        List<LocationFix> backfill = List.of(
+                new LocationFix(LAT + 0.001, LON, start),
+                new LocationFix(LAT + 0.002, LON, start + 10),
+                new LocationFix(LAT + 0.003, LON, start + 20));
+        service.ingestFixes(actorId, backfill).block();
+
+        List<LocationFix> saved = savedBatches(2).get(1);
+        assertThat(saved).extracting(LocationFix::timestamp).containsExactly(start, start + 10, start + 20);
+        // Plus ancien que le Live déjà stocké : l'ordre par horodatage le laisse en place
+        assertThat(saved).allMatch(fix -> fix.timestamp() < now);
+    }
+
+    @Test
+    void futureTimestampsAreClampedToNow() {
+        long before = Instant.now().getEpochSecond();
+        service.ingestFixes(actorId, List.of(
+                new LocationFix(LAT, LON, before - 5),
+                new LocationFix(LAT + 0.001, LON, before + 3600))).block();
+        long after = Instant.now().getEpochSecond();
+
+        List<LocationFix> saved = savedBatches(1).get(0);
+        assertThat(saved.get(0).timestamp()).isEqualTo(before - 5);
+        assertThat(saved.get(1).timestamp()).isBetween(before, after);
+    }
+
+    @Test
+    void fixesAreSortedAndInvalidOnesDropped() {
+        long now = Instant.now().getEpochSecond();
+        service.ingestFixes(actorId, List.of(
+                new LocationFix(LAT, LON, now - 10),
+                new LocationFix(91.0, LON, now - 20),
+                new LocationFix(LAT, LON, now - 30))).block();
+
+        assertThat(savedBatches(1).get(0)).extracting(LocationFix::timestamp).containsExactly(now - 30, now - 10);
+    }
+}
@@ -0,0 +1,60 @@
+package com.yowyob.rideandgo.domain.ports.out;
+
+import com.yowyob.rideandgo.domain.ports.out.OfferRepositoryPort.OfferCursor;
+import com.yowyob.rideandgo.infrastructure.adapters.inbound.rest.GlobalExceptionHandler;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.catchThrowableOfType;
+
+class OfferCursorTest {
+
+    @Test
+    void tokenRoundTrips() {
+        OfferCursor cursor = new OfferCursor(LocalDateTime.of(2024, 5, 17, 14, 3, 27, 123_456_000),
+                UUID.randomUUID());
+
+        assertThat(OfferCursor.parse(cursor.token())).isEqualTo(cursor);
+    }
+
+    @Test
+    void tokenWithWholeSecondsRoundTrips() {
+        OfferCursor cursor = new OfferCursor(LocalDateTime.of(2024, 1, 1, 0, 0), UUID.randomUUID());
+
+        assertThat(OfferCursor.parse(cursor.token())).isEqualTo(cursor);
+    }
+
+    @Test
+    void tokenWithoutSeparatorIsRejected() {
+        assertThatThrownBy(() -> OfferCursor.parse("2024-05-17T14:03:27"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void tokenWithBadDateIsRejected() {
+        assertThatThrownBy(() -> OfferCursor.parse("yesterday_" + UUID.randomUUID()))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void tokenWithBadIdIsRejected() {
+        assertThatThrownBy(() -> OfferCursor.parse("2024-05-17T14:03:27_not-a-uuid"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void malformedTokenIsABadRequest() {
+        IllegalArgumentException error = catchThrowableOfType(() -> OfferCursor.parse("garbage"),
+                IllegalArgumentException.class);
+
+        ProblemDetail problem = new GlobalExceptionHandler().handleIllegalArgument(error);
+
+        assertThat(problem.getStatus()).isEqualTo(HttpStatus.BAD_REQUEST.value());
+    }
+}
@@ -0,0 +1,101 @@
+package com.yowyob.rideandgo.infrastructure.adapters.outbound.cache;
+
+import com.yowyob.rideandgo.domain.ports.out.LocationCachePort.LocationFix;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class TrajectoryCodecTest {
+
+    private static final double MICRO_DEGREE = 1e-6;
+
+    private static List<LocationFix> decodeAll(ByteBuffer buf) {
+        List<LocationFix> points = new ArrayList<>();
+        TrajectoryCodec.decode(buf, (lat, lon, ts) -> points.add(new LocationFix(lat, lon, ts)));
+        return points;
+    }
+
+    private static void assertSamePoints(List<LocationFix> actual, List<LocationFix> expected) {
+        assertThat(actual).hasSameSizeAs(expected);
+        for (int i = 0; i < expected.size(); i++) {
+            assertThat(actual.get(i).latitude()).isCloseTo(expected.get(i).latitude(), within(MICRO_DEGREE));
+            assertThat(actual.get(i).longitude()).isCloseTo(expected.get(i).longitude(), within(MICRO_DEGREE));
+            assertThat(actual.get(i).timestamp()).isEqualTo(expected.get(i).timestamp());
+        }
+    }
+
+    @Test
+    void roundTripsABlock() {
+        List<LocationFix> fixes = List.of(
+                new LocationFix(3.848033, 11.502075, 1_700_000_000L),
+                new LocationFix(3.848101, 11.502190, 1_700_000_004L),
+                new LocationFix(3.848250, 11.502012, 1_700_000_009L));
+
+        assertSamePoints(decodeAll(TrajectoryCodec.encode(fixes)), fixes);
+    }
+
+    @Test
+    void roundTripsSingleFix() {
+        List<LocationFix> fixes = List.of(new LocationFix(-33.868820, 151.209296, 1_700_000_000L));
+
+        assertSamePoints(decodeAll(TrajectoryCodec.encode(fixes)), fixes);
+    }
+
+    @Test
+    void roundTripsExtremeCoordinatesAndNegativeDeltas() {
+        // Deltas maximaux (antiméridien, pôle à pôle) et horodatages décroissants
+        List<LocationFix> fixes = List.of(
+                new LocationFix(90.0, -180.0, 1_700_000_100L),
+                new LocationFix(-90.0, 180.0, 1_700_000_000L),
+                new LocationFix(0.0, 0.0, 0L));
+
+        assertSamePoints(decodeAll(TrajectoryCodec.encode(fixes)), fixes);
+    }
+
+    @Test
+    void decodesConsecutiveAppendedBlocks() {
+        List<LocationFix> first = List.of(
+                new LocationFix(3.848033, 11.502075, 1_700_000_000L),
+                new LocationFix(3.848101, 11.502190, 1_700_000_004L));
+        List<LocationFix> second = List.of(new LocationFix(3.849000, 11.503000, 1_700_000_030L));
+
+        ByteBuffer a = TrajectoryCodec.encode(first);
+        ByteBuffer b = TrajectoryCodec.encode(second);
+        // Équivalent des APPEND successifs dans Redis
+        ByteBuffer buffer = ByteBuffer.allocate(a.remaining() + b.remaining()).put(a).put(b).flip();
+
+        List<LocationFix> expected = new ArrayList<>(first);
+        expected.addAll(second);
+        List<LocationFix> decoded = new ArrayList<>();
+        int count = TrajectoryCodec.decode(buffer,
+                (lat, lon, ts) -> decoded.add(new LocationFix(lat, lon, ts)));
+
+        assertThat(count).isEqualTo(3);
+        assertSamePoints(decoded, expected);
+    }
+
+    @Test
+    void emptyBufferDecodesNothing() {
+        assertThat(TrajectoryCodec.decode(ByteBuffer.allocate(0), (lat, lon, ts) -> {
+        })).isZero();
+    }
+
+    @Test
+    void pointsInABatchStayCompact() {
+        List<LocationFix> fixes = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            // ~10 m et 3 s entre deux points
+            fixes.add(new LocationFix(3.848 + i * 0.0001, 11.502 + i * 0.0001, 1_700_000_000L + i * 3L));
+        }
+
+        ByteBuffer encoded = TrajectoryCodec.encode(fixes);
+
+        assertThat(encoded.remaining()).isLessThanOrEqualTo(15 + 99 * 6);
+        assertSamePoints(decodeAll(encoded), fixes);
+    }
+}